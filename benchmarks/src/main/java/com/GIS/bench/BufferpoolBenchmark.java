@@ -0,0 +1,114 @@
+package com.GIS.bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.GIS.databaseModel.Bufferpool;
+import com.GIS.databaseModel.EvictionPolicy;
+import com.GIS.databaseModel.PageCache;
+
+/**
+ * Benchmarks a Bufferpool of records under each eviction policy. Keys are the records'
+ * offsets and are requested with a skew, most requests going to a small hot set the way
+ * repeated queries do, the rest spread over every record.
+ * @author Mansour Najah
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BufferpoolBenchmark {
+
+	// Requests cycle through this many precomputed keys.
+	private static final int REQUESTS = 1 << 16;
+
+	@Param({"1000", "100000"})
+	public int size;
+
+	@Param({"lru", "clock", "2q", "tinylfu"})
+	public String policy;
+
+	private String[] values;
+	private long[] offsets;
+	private int[] requests;
+	private Bufferpool pool;
+	private int next;
+
+	@Setup
+	public void setup() throws IOException {
+		List<String> records = GnisData.records(size);
+		values = new String[size];
+		offsets = new long[size];
+
+		long offset = 0;
+
+		for (int i = 0; i < size; i++) {
+			values[i] = records.get(i);
+			offsets[i] = offset;
+			offset += values[i].length() + 1;
+		}
+
+		// Four requests in five go to the first sixteenth of the records.
+		Random random = new Random(size);
+		int hot = Math.max(size / 16, 1);
+		requests = new int[REQUESTS];
+
+		for (int i = 0; i < REQUESTS; i++) {
+			requests[i] = random.nextInt(5) < 4 ? random.nextInt(hot) : random.nextInt(size);
+		}
+
+		pool = new Bufferpool(PageCache.DEFAULT_BUDGET, EvictionPolicy.forName(policy, PageCache.DEFAULT_BUDGET));
+
+		for (int i = 0; i < REQUESTS; i++) {
+			access();
+		}
+	}
+
+	private int nextRequest() {
+		next = (next + 1) & (REQUESTS - 1);
+		return requests[next];
+	}
+
+	@Benchmark
+	public String getElem() {
+		return pool.getElem(offsets[nextRequest()]);
+	}
+
+	@Benchmark
+	public Bufferpool insertElem() {
+		int i = nextRequest();
+		pool.insertElem(values[i], offsets[i]);
+
+		return pool;
+	}
+
+	// What a query does: look the record up, and cache it if it wasn't there.
+	@Benchmark
+	public String access() {
+		int i = nextRequest();
+		String val = pool.getElem(offsets[i]);
+
+		if (val == null) {
+			val = values[i];
+			pool.insertElem(val, offsets[i]);
+		}
+
+		return val;
+	}
+}
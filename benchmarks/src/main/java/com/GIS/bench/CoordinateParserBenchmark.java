@@ -0,0 +1,131 @@
+package com.GIS.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.GIS.world.CoordinateParser;
+
+/**
+ * Compares CoordinateParser against the substring based code it replaced, both for
+ * converting DMS coordinates to total seconds and for rendering them in the log.
+ * Each invocation handles a whole batch of GNIS-like coordinates.
+ * @author Mansour Najah
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoordinateParserBenchmark {
+
+	private static final int BATCH = 1024;
+
+	private String[] latitudes;
+	private String[] longitudes;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		latitudes = new String[BATCH];
+		longitudes = new String[BATCH];
+
+		for (int i = 0; i < BATCH; i++) {
+			latitudes[i] = String.format("%02d%02d%02dN", 36 + random.nextInt(4), random.nextInt(60), random.nextInt(60));
+			longitudes[i] = String.format("%03d%02d%02dW", 75 + random.nextInt(9), random.nextInt(60), random.nextInt(60));
+		}
+	}
+
+	@Benchmark
+	public void toSeconds(Blackhole bh) {
+		for (int i = 0; i < BATCH; i++) {
+			bh.consume(CoordinateParser.toSeconds(latitudes[i]));
+			bh.consume(CoordinateParser.toSeconds(longitudes[i]));
+		}
+	}
+
+	@Benchmark
+	public void legacyToSeconds(Blackhole bh) {
+		for (int i = 0; i < BATCH; i++) {
+			bh.consume(legacyDMSToInt(latitudes[i]));
+			bh.consume(legacyDMSToInt(longitudes[i]));
+		}
+	}
+
+	@Benchmark
+	public void render(Blackhole bh) {
+		for (int i = 0; i < BATCH; i++) {
+			bh.consume(CoordinateParser.parseLatitude(latitudes[i]));
+			bh.consume(CoordinateParser.parseLongitude(longitudes[i]));
+		}
+	}
+
+	@Benchmark
+	public void legacyRender(Blackhole bh) {
+		for (int i = 0; i < BATCH; i++) {
+			bh.consume(legacyParseLatitude(latitudes[i]));
+			bh.consume(legacyParseLongitude(longitudes[i]));
+		}
+	}
+
+	// The code below is the conversion and rendering as they were before CoordinateParser took them over.
+
+	private static int legacyDMSToInt(String DMS) {
+		if (DMS == null || DMS.equals("Unknown")) {
+			return 181 * 3600;
+		}
+
+		char dir = DMS.charAt(DMS.length() - 1);
+		int result = 0;
+
+		if (dir == 'N') {
+			result += Integer.parseInt(DMS.substring(0, 2)) * 3600;
+			result += Integer.parseInt(DMS.substring(2, 4)) * 60;
+			result += Integer.parseInt(DMS.substring(4, 6));
+		} else if (dir == 'W') {
+			result -= Integer.parseInt(DMS.substring(0, 3)) * 3600;
+			result -= Integer.parseInt(DMS.substring(3, 5)) * 60;
+			result -= Integer.parseInt(DMS.substring(5, 7));
+		}
+
+		return result;
+	}
+
+	private static String legacyParseLatitude(String latitude) {
+		if (latitude.length() == 0 || latitude.equals("Unknown")) {
+			return "Coordinate is not given";
+		}
+
+		String d = latitude.substring(0, 2);
+		String m = latitude.charAt(2) == '0' ? String.valueOf(latitude.charAt(3)) : latitude.substring(2, 4);
+		String s = latitude.charAt(4) == '0' ? String.valueOf(latitude.charAt(5)) : latitude.substring(4, 6);
+		String h = latitude.charAt(6) == 'N' ? "North" : latitude.charAt(6) == 'S' ? "South" : "";
+
+		return d + "d " + m + "m " + s + "s " + h;
+	}
+
+	private static String legacyParseLongitude(String longitude) {
+		if (longitude.length() == 0 || longitude.equals("Unknown")) {
+			return "Coordinate is not given";
+		}
+
+		String d = longitude.substring(1, 3);
+		String m = longitude.charAt(3) == '0' ? String.valueOf(longitude.charAt(4)) : longitude.substring(3, 5);
+		String s = longitude.charAt(5) == '0' ? String.valueOf(longitude.charAt(6)) : longitude.substring(5, 7);
+		String h = longitude.charAt(7) == 'E' ? "East" : longitude.charAt(7) == 'W' ? "West" : "";
+
+		return d + "d " + m + "m " + s + "s " + h;
+	}
+}
@@ -0,0 +1,94 @@
+package com.GIS.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.GIS.databaseModel.DbFileModel;
+
+/**
+ * Benchmarks reading records back from the database file at random offsets, in each read mode
+ * and storage format. Read modes make no difference to a DEFLATE file, whose records are cut out
+ * of decompressed blocks either way.
+ * @author Mansour Najah
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DbFileBenchmark {
+
+	// Reads cycle through this many precomputed offsets.
+	private static final int READS = 1 << 16;
+
+	@Param({"1000", "100000"})
+	public int size;
+
+	@Param({"MAPPED", "RANDOM_ACCESS"})
+	public DbFileModel.ReadMode readMode;
+
+	@Param({"TEXT", "DEFLATE"})
+	public DbFileModel.StorageFormat storage;
+
+	private Path dbFile;
+	private DbFileModel model;
+	private long[] reads;
+	private int next;
+
+	@Setup
+	public void setup() throws IOException {
+		dbFile = Files.createTempFile("gis-db-", ".txt");
+		model = new DbFileModel(dbFile.toString(), false, storage, false).open();
+		model.setReadMode(readMode);
+
+		List<String> records = GnisData.records(size);
+		long[] offsets = new long[size];
+		long offset = model.length();
+
+		for (int i = 0; i < size; i++) {
+			offsets[i] = offset;
+			offset += records.get(i).length() + 1;
+		}
+
+		model.importRecords(records);
+
+		Random random = new Random(size);
+		reads = new long[READS];
+
+		for (int i = 0; i < READS; i++) {
+			reads[i] = offsets[random.nextInt(size)];
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		model.shutdown();
+		Files.deleteIfExists(dbFile);
+		Files.deleteIfExists(Paths.get(DbFileModel.manifestFile(dbFile.toString())));
+	}
+
+	@Benchmark
+	public String seekRecord() throws IOException {
+		next = (next + 1) & (READS - 1);
+		return model.seekRecord(reads[next]);
+	}
+}
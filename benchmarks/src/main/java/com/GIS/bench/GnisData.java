@@ -0,0 +1,148 @@
+package com.GIS.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.GIS.hashtable.nameEntry;
+import com.GIS.util.FieldTokenizer;
+import com.GIS.world.CoordinateParser;
+import com.GIS.world.Point;
+
+/**
+ * Synthetic GNIS data for the benchmarks. Records are made by cycling through the records of
+ * the VA_*.txt samples, each copy getting its own feature ID, name and coordinates somewhere in
+ * Virginia. The same count always gives the same records, so runs can be compared.
+ * The samples are looked for in the directory named by the gis.samples property, the
+ * working directory by default.
+ * @author Mansour Najah
+ */
+final class GnisData {
+
+	// World boundaries covering every generated coordinate.
+	static final String WEST = "0840000W", EAST = "0750000W", SOUTH = "360000N", NORTH = "400000N";
+
+	private static String header;
+	private static List<String> samples;
+
+	private GnisData() {
+	}
+
+	/**
+	 * Loads the sample records, once.
+	 */
+	private static synchronized void loadSamples() throws IOException {
+		if (samples != null) {
+			return;
+		}
+
+		Path dir = Paths.get(System.getProperty("gis.samples", "."));
+		List<String> records = new ArrayList<>();
+
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "VA_*.txt")) {
+			List<Path> sorted = new ArrayList<>();
+			files.forEach(sorted::add);
+			sorted.sort(null);
+
+			for (Path file : sorted) {
+				List<String> lines = Files.readAllLines(file, StandardCharsets.ISO_8859_1);
+				header = lines.get(0);
+				records.addAll(lines.subList(1, lines.size()));
+			}
+		}
+
+		if (records.isEmpty()) {
+			throw new IOException("No VA_*.txt samples found in " + dir.toAbsolutePath());
+		}
+
+		samples = records;
+	}
+
+	/**
+	 * Generates GNIS records.
+	 *
+	 * @param count: the number of records.
+	 * @return: the records, without line breaks.
+	 */
+	static List<String> records(int count) throws IOException {
+		loadSamples();
+
+		Random random = new Random(count);
+		List<String> records = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			String[] fields = samples.get(i % samples.size()).split("\\|", -1);
+
+			fields[0] = String.valueOf(i + 1);
+			fields[1] = fields[1] + " " + (i / samples.size());
+
+			// Somewhere between 36d 30m and 39d 30m North, 75d 30m and 83d 30m West.
+			fields[7] = dms(36 * 3600 + 1800 + random.nextInt(3 * 3600), 2, 'N');
+			fields[8] = dms(75 * 3600 + 1800 + random.nextInt(8 * 3600), 3, 'W');
+
+			records.add(String.join("|", fields));
+		}
+
+		return records;
+	}
+
+	/**
+	 * Writes generated records to a GNIS data file, header line first.
+	 *
+	 * @param count: the number of records.
+	 * @return: the file, deleted when the JVM exits.
+	 */
+	static Path dataFile(int count) throws IOException {
+		List<String> records = records(count);
+		Path file = Files.createTempFile("gnis-" + count + "-", ".txt");
+		file.toFile().deleteOnExit();
+
+		try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.ISO_8859_1)) {
+			out.write(header);
+			out.write('\n');
+
+			for (String record : records) {
+				out.write(record);
+				out.write('\n');
+			}
+		}
+
+		return file;
+	}
+
+	/**
+	 * Returns the location of a record, holding the given offset.
+	 */
+	static Point location(String record, long offset) {
+		FieldTokenizer fields = new FieldTokenizer().reset(record);
+		Point loc = new Point(
+				CoordinateParser.toSeconds(record, fields.start(8), fields.end(8)),
+				CoordinateParser.toSeconds(record, fields.start(7), fields.end(7)));
+		loc.addOffset(offset);
+
+		return loc;
+	}
+
+	/**
+	 * Returns the name index entry of a record, holding the given offset.
+	 */
+	static nameEntry entry(String record, long offset) {
+		FieldTokenizer fields = new FieldTokenizer().reset(record);
+		return new nameEntry(fields.field(1), fields.field(3), offset);
+	}
+
+	/**
+	 * Formats total seconds as a DMS coordinate with the given number of degree digits.
+	 */
+	private static String dms(int seconds, int degreeDigits, char hemisphere) {
+		return String.format("%0" + degreeDigits + "d%02d%02d%c",
+				seconds / 3600, seconds / 60 % 60, seconds % 60, hemisphere);
+	}
+}
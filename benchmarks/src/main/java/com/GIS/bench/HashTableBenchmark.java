@@ -0,0 +1,153 @@
+package com.GIS.bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.GIS.hashtable.hashTable;
+import com.GIS.hashtable.nameEntry;
+import com.GIS.hashtable.openHashTable;
+
+/**
+ * Benchmarks the name index: inserts, lookups and resizing, for both the chained hashTable
+ * and the openHashTable DbController uses, plus the upserts imports go through. Tables start
+ * at 1024 slots with a 0.7 load limit, like DbController's, so inserts include every resize
+ * on the way.
+ * @author Mansour Najah
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashTableBenchmark {
+
+	@Param({"1000", "100000"})
+	public int size;
+
+	private nameEntry[] entries;
+	private nameEntry[] probes;
+	private hashTable<nameEntry> chained;
+	private openHashTable<nameEntry> open;
+	private int next;
+
+	@Setup
+	public void setup() throws IOException {
+		List<String> records = GnisData.records(size);
+		entries = new nameEntry[size];
+		probes = new nameEntry[size];
+
+		for (int i = 0; i < size; i++) {
+			entries[i] = GnisData.entry(records.get(i), i);
+			probes[i] = GnisData.entry(records.get(i), 0);
+		}
+
+		chained = fillChained();
+		open = fillOpen();
+	}
+
+	private hashTable<nameEntry> fillChained() {
+		hashTable<nameEntry> table = new hashTable<>(1024, 0.7);
+
+		for (nameEntry entry : entries) {
+			table.insert(entry);
+		}
+
+		return table;
+	}
+
+	private openHashTable<nameEntry> fillOpen() {
+		openHashTable<nameEntry> table = new openHashTable<>(1024, 0.7);
+
+		for (nameEntry entry : entries) {
+			table.insert(entry);
+		}
+
+		return table;
+	}
+
+	private nameEntry nextProbe() {
+		next = next + 1 == size ? 0 : next + 1;
+		return probes[next];
+	}
+
+	/**
+	 * Freshly filled tables for each reallocate() call, since every call doubles the table.
+	 */
+	@State(Scope.Thread)
+	public static class Filled {
+		hashTable<nameEntry> chained;
+		openHashTable<nameEntry> open;
+
+		@Setup(Level.Invocation)
+		public void fill(HashTableBenchmark benchmark) {
+			chained = benchmark.fillChained();
+			open = benchmark.fillOpen();
+		}
+	}
+
+	@Benchmark
+	public hashTable<nameEntry> chainedInsert() {
+		return fillChained();
+	}
+
+	@Benchmark
+	public nameEntry chainedFind() {
+		return chained.find(nextProbe());
+	}
+
+	@Benchmark
+	public hashTable<nameEntry> chainedReallocate(Filled filled) {
+		filled.chained.reallocate();
+		return filled.chained;
+	}
+
+	@Benchmark
+	public openHashTable<nameEntry> openInsert() {
+		return fillOpen();
+	}
+
+	@Benchmark
+	public nameEntry openFind() {
+		return open.find(nextProbe());
+	}
+
+	/**
+	 * Upserts every entry into a fresh table, the way DbController indexes an import. Every
+	 * entry is offered twice, so half the calls return the entry already stored.
+	 */
+	@Benchmark
+	public openHashTable<nameEntry> openFindOrInsert() {
+		openHashTable<nameEntry> table = new openHashTable<>(1024, 0.7);
+
+		for (nameEntry entry : entries) {
+			table.findOrInsert(entry);
+		}
+
+		for (nameEntry probe : probes) {
+			table.findOrInsert(probe);
+		}
+
+		return table;
+	}
+
+	@Benchmark
+	public openHashTable<nameEntry> openReallocate(Filled filled) {
+		filled.open.reallocate();
+		return filled.open;
+	}
+}
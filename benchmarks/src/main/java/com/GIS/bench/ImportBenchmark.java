@@ -0,0 +1,79 @@
+package com.GIS.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.GIS.databaseModel.DbController;
+import com.GIS.databaseModel.DbFileModel;
+
+/**
+ * Benchmarks a whole import into an empty database: streaming the data file, appending it to
+ * the database file and building the name index and world. Each import is timed on its own,
+ * starting from a fresh DbController, which starts the database file over with just its header.
+ * @author Mansour Najah
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ImportBenchmark {
+
+	@Param({"1000", "100000"})
+	public int size;
+
+	@Param({"1", "4"})
+	public int threads;
+
+	private Path dataFile;
+	private Path dbFile;
+	private DbController controller;
+
+	@Setup
+	public void setup() throws IOException {
+		dataFile = GnisData.dataFile(size);
+		dbFile = Files.createTempFile("gis-db-", ".txt");
+	}
+
+	@Setup(Level.Invocation)
+	public void reset() throws IOException {
+		// The last import's controller is done with the file, the next one starts it over.
+		if (controller != null) {
+			controller.shutdown();
+		}
+
+		controller = new DbController(dbFile.toString());
+		controller.setImportThreads(threads);
+		controller.getWorldBoundaries(GnisData.WEST, GnisData.EAST, GnisData.SOUTH, GnisData.NORTH);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		controller.shutdown();
+		Files.deleteIfExists(dbFile);
+		Files.deleteIfExists(Paths.get(DbFileModel.manifestFile(dbFile.toString())));
+	}
+
+	@Benchmark
+	public long[] importRecords() throws IOException {
+		return controller.importRecords(dataFile.toString());
+	}
+}
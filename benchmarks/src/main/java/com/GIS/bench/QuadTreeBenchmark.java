@@ -0,0 +1,110 @@
+package com.GIS.bench;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.GIS.world.CoordinateParser;
+import com.GIS.world.Point;
+import com.GIS.world.prQuadTree;
+
+/**
+ * Benchmarks building, point lookups and region searches on a prQuadTree shaped like
+ * DbController's world, 4 locations per leaf and at most 24 levels deep.
+ * @author Mansour Najah
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuadTreeBenchmark {
+
+	private static final int BUCKET_SIZE = 4;
+	private static final int MAX_DEPTH = 24;
+
+	// Lookups and searches cycle through this many precomputed targets.
+	private static final int TARGETS = 1024;
+
+	@Param({"1000", "100000"})
+	public int size;
+
+	private long xMin, xMax, yMin, yMax;
+	private List<Point> locations;
+	private prQuadTree<Point> tree;
+	private Point[] targets;
+	private int next;
+
+	@Setup
+	public void setup() throws IOException {
+		xMin = CoordinateParser.toSeconds(GnisData.WEST);
+		xMax = CoordinateParser.toSeconds(GnisData.EAST);
+		yMin = CoordinateParser.toSeconds(GnisData.SOUTH);
+		yMax = CoordinateParser.toSeconds(GnisData.NORTH);
+
+		List<String> records = GnisData.records(size);
+		locations = new ArrayList<>(size);
+
+		for (int i = 0; i < size; i++) {
+			locations.add(GnisData.location(records.get(i), i));
+		}
+
+		tree = build();
+
+		// Half existing locations, half misses next to them.
+		Random random = new Random(7);
+		targets = new Point[TARGETS];
+
+		for (int i = 0; i < TARGETS; i++) {
+			Point loc = locations.get(random.nextInt(size));
+			targets[i] = i % 2 == 0 ? loc : new Point(loc.getX() + 1, loc.getY());
+		}
+	}
+
+	private prQuadTree<Point> build() {
+		prQuadTree<Point> world = new prQuadTree<>(xMin, xMax, yMin, yMax, BUCKET_SIZE, MAX_DEPTH);
+
+		for (Point loc : locations) {
+			world.insert(loc);
+		}
+
+		return world;
+	}
+
+	private Point nextTarget() {
+		next = (next + 1) & (TARGETS - 1);
+		return targets[next];
+	}
+
+	@Benchmark
+	public prQuadTree<Point> insert() {
+		return build();
+	}
+
+	@Benchmark
+	public Point find() {
+		return tree.find(nextTarget());
+	}
+
+	// A region of 10 minutes by 10 minutes around a target, a typical what_is_in.
+	@Benchmark
+	public List<Point> rangeFind() {
+		Point center = nextTarget();
+		return tree.find(center.getX() - 300, center.getX() + 300, center.getY() - 300, center.getY() + 300);
+	}
+}
@@ -1,6 +1,10 @@
 import java.io.File;
 import java.io.IOException;
 
+import com.GIS.databaseModel.DbFileModel;
+import com.GIS.databaseModel.EvictionPolicy;
+import com.GIS.databaseModel.PageCache;
+
 //On my honor:
 //
 //- I have not discussed the Java language code in my program with
@@ -36,23 +40,51 @@ public class GIS {
 	 * @throws IOException 
 	 */
 	public static void main(String[] args) throws IOException {
-		// Checking for arguments.
-		if (args.length == 3) {
+		// Checking for arguments, the last three are optional.
+		if (args.length >= 3 && args.length <= 6) {
 			String dbFileName = args[0];
 			File scriptFile = new File(args[1]);
 			String scriptFileName = args[1];
 			String logFileName = args[2];
+			long poolBudget = PageCache.DEFAULT_BUDGET;
+			String poolPolicy = args.length >= 5 ? args[4] : "lru";
+			String storageFormat = args.length == 6 ? args[5] : "text";
+			
+			if (args.length >= 4) {
+				try {
+					poolBudget = Long.parseLong(args[3]);
+				} catch (NumberFormatException e) {
+					poolBudget = 0;
+				}
+				
+				if (poolBudget < 1) {
+					System.out.println("Buffer pool budget must be a positive number of bytes.");
+					return;
+				}
+			}
+			
+			try {
+				EvictionPolicy.forName(poolPolicy, poolBudget);
+			} catch (IllegalArgumentException e) {
+				System.out.println(e.getMessage() + ", use one of lru, clock, 2q or tinylfu.");
+				return;
+			}
+			
+			try {
+				DbFileModel.StorageFormat.forName(storageFormat);
+			} catch (IllegalArgumentException e) {
+				System.out.println(e.getMessage() + ", use text or deflate.");
+				return;
+			}
 
-			ScriptParser parser = new ScriptParser(dbFileName, scriptFile, logFileName, scriptFileName);
+			ScriptParser parser = new ScriptParser(dbFileName, scriptFile, logFileName, scriptFileName, poolBudget, poolPolicy, storageFormat);
 			parser.executeScript();
 		} else if (args.length < 3){
 			System.out.println("Not enough command line parameters.");
-			System.out.println("\n Invoke with: java nameIndexer <script file name> <log file name>");
-		} else if (args.length > 3) {
-			System.out.println("Too many command line parameters.");
-			System.out.println("\n Invoke with: java nameIndexer <script file name> <log file name>");
+			System.out.println("\n Invoke with: java GIS <db file name> <script file name> <log file name> [<pool bytes> [<pool policy> [<storage>]]]");
 		} else {
-			System.out.println("\n Invoke with: java nameIndexer <script file name> <log file name>");
+			System.out.println("Too many command line parameters.");
+			System.out.println("\n Invoke with: java GIS <db file name> <script file name> <log file name> [<pool bytes> [<pool policy> [<storage>]]]");
 		}
 
 	}
@@ -7,6 +7,9 @@ import java.util.Map;
 
 import com.GIS.databaseModel.DbController;
 import com.GIS.databaseModel.DbWriter;
+import com.GIS.databaseModel.Feature;
+import com.GIS.databaseModel.PageCache;
+import com.GIS.databaseModel.RecordHandler;
 
 /**
  * Handles all commands in provided script files when running the program.
@@ -23,6 +26,10 @@ public class ScriptParser {
 	private String logName;
 	private FileWriter fwLog;
 	
+	private long poolBudget;
+	private String poolPolicy;
+	private String storageFormat;
+	
 	/**
 	 * Creates a new ScriptParser object.
 	 * 
@@ -31,7 +38,34 @@ public class ScriptParser {
 	 * @throws IOException 
 	 */
 	public ScriptParser(String dbFileName, File scriptFile, String logFileName, String scriptFileName) throws IOException {
+		this(dbFileName, scriptFile, logFileName, scriptFileName, PageCache.DEFAULT_BUDGET, "lru");
+	}
+	
+	/**
+	 * Creates a new ScriptParser object whose buffer pool has a given budget and eviction policy.
+	 * 
+	 * @param poolBudget: the number of bytes the buffer pool can cache.
+	 * @param poolPolicy: the name of the buffer pool's eviction policy.
+	 * @throws IOException 
+	 */
+	public ScriptParser(String dbFileName, File scriptFile, String logFileName, String scriptFileName, long poolBudget, String poolPolicy) throws IOException {
+		this(dbFileName, scriptFile, logFileName, scriptFileName, poolBudget, poolPolicy, "text");
+	}
+	
+	/**
+	 * Creates a new ScriptParser object whose db file is stored in a given format.
+	 * 
+	 * @param poolBudget: the number of bytes the buffer pool can cache.
+	 * @param poolPolicy: the name of the buffer pool's eviction policy.
+	 * @param storageFormat: the name of the db file's storage format, text or deflate.
+	 * @throws IOException 
+	 */
+	public ScriptParser(String dbFileName, File scriptFile, String logFileName, String scriptFileName, long poolBudget, String poolPolicy,
+			String storageFormat) throws IOException {
 		this.dbFileName = dbFileName;
+		this.storageFormat = storageFormat;
+		this.poolBudget = poolBudget;
+		this.poolPolicy = poolPolicy;
 		rafScript = new RandomAccessFile(scriptFile, "r");
 		scriptName = scriptFileName;
 		logName = logFileName;
@@ -43,7 +77,7 @@ public class ScriptParser {
 	 */
 	public void executeScript() {
 		try {
-			DbController dbController = new DbController(dbFileName);
+			DbController dbController = new DbController(dbFileName, poolBudget, poolPolicy, storageFormat);
 			DbWriter dbWriter = new DbWriter(fwLog);
 			String commandLine;
 			String[] values;
@@ -81,17 +115,53 @@ public class ScriptParser {
 						long[] result = dbController.importRecords(values[1]);
 						dbWriter.logImport(result);
 						break;
+					case "reopen":
+						// Keeps the records earlier runs left in the db file instead of starting it over.
+						result = dbController.reopen();
+						dbWriter.logReopen(dbFileName, result);
+						break;
+					case "save_index":
+						result = dbController.saveIndex(values[1]);
+						dbWriter.logSaveIndex(values[1], result);
+						break;
+					case "load_index":
+						// Picks up a db file and its indices where an earlier run left them.
+						result = dbController.loadIndex(values[1]);
+						dbWriter.logLoadIndex(values[1], result);
+						break;
 					case "what_is":
-						Map<Long, String> records = dbController.whatIs(values[1], values[2]);
+						Map<Long, Feature> records = dbController.whatIs(values[1], values[2], DbWriter.WHAT_IS_COLUMNS);
 						dbWriter.logWhatIs(values[1], values[2], records);
 						break;
 					case "what_is_at":
-						records = dbController.whatIsAt(values[1], values[2]);
+						records = dbController.whatIsAt(values[1], values[2], DbWriter.WHAT_IS_AT_COLUMNS);
 						dbWriter.logWhatIsAt(values[1], values[2], records);
 						break;
 					case "what_is_in":
-						records = dbController.whatIsIn(values[1], values[2], Long.parseLong(values[3]), Long.parseLong(values[4]));
-						dbWriter.logWhatIsIn(values[1], values[2], Long.parseLong(values[3]), Long.parseLong(values[4]), records);
+						// Records are streamed straight into the log as the region is walked, an optional last
+						// value caps how many. With -long first, every field of each record is logged.
+						boolean verbose = values[1].equals("-long");
+						int arg = verbose ? 2 : 1;
+						
+						long halfY = Long.parseLong(values[arg + 2]);
+						long halfX = Long.parseLong(values[arg + 3]);
+						long limit = values.length > arg + 4 ? Long.parseLong(values[arg + 4]) : Long.MAX_VALUE;
+						
+						RecordHandler handler = verbose
+								? dbWriter.logWhatIsInLong(values[arg], values[arg + 1], halfY, halfX)
+								: dbWriter.logWhatIsIn(values[arg], values[arg + 1], halfY, halfX);
+						
+						long count = dbController.whatIsIn(values[arg], values[arg + 1], halfY, halfX, limit,
+								verbose ? DbWriter.WHAT_IS_IN_LONG_COLUMNS : DbWriter.WHAT_IS_IN_COLUMNS, handler);
+						dbWriter.logWhatIsInCount(count);
+						break;
+					case "what_is_near":
+						records = dbController.whatIsNear(values[1], values[2], Integer.parseInt(values[3]), DbWriter.WHAT_IS_IN_COLUMNS);
+						dbWriter.logWhatIsNear(values[1], values[2], Integer.parseInt(values[3]), records);
+						break;
+					case "what_is_within":
+						records = dbController.whatIsWithin(values[1], values[2], Double.parseDouble(values[3]), DbWriter.WHAT_IS_IN_COLUMNS);
+						dbWriter.logWhatIsWithin(values[1], values[2], Double.parseDouble(values[3]), records);
 						break;
 					case "show":
 						dbController.show(values[1], fwLog);
@@ -104,6 +174,7 @@ public class ScriptParser {
 				fwLog.write("\n--------------------------------------------------------------------------------");
 			}
 			
+			dbController.shutdown();
 			fwLog.close();
 			rafScript.close();
 			
@@ -0,0 +1,383 @@
+package com.GIS.databaseModel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The compressed storage format of a db file. The file's content, the same header and records
+ * a plain db file holds, is cut into frames compressed with Deflate one at a time. Offsets still
+ * count bytes of that content, so they're the same as in a plain db file.
+ *
+ * The file starts with a magic number, the format version and the block size. Each frame follows
+ * as the number of bytes it holds, its compressed length and a CRC32 of its bytes, then the
+ * compressed bytes. A frame never crosses a multiple of the block size, so a page of that size
+ * comes out of one frame, or a few small ones where imports ended inside it.
+ *
+ * The block index, where each frame starts in the content and in the file, is kept in memory.
+ * It's rebuilt from the frame headers when the file is reopened. The file is passed in on every
+ * call, so a db file can be closed and reopened between commands.
+ *
+ * @author Mansour Najah
+ */
+final class BlockStore {
+	
+	// "GISZ", then the version of the layout above.
+	private static final int MAGIC = 0x4749535A;
+	private static final int VERSION = 1;
+	
+	private static final int FILE_HEADER_SIZE = 12;
+	private static final int FRAME_HEADER_SIZE = 12;
+	
+	private final int blockSize;
+	
+	// The block index: where each frame's bytes start in the content, and where the frame is in the file.
+	private long[] starts = new long[64];
+	private long[] positions = new long[64];
+	private int frames;
+	
+	// Bytes in written frames, and where the next frame goes in the file.
+	private long length;
+	private long fileEnd;
+	
+	// Bytes appended since the last frame was written.
+	private final byte[] pending;
+	private int pendingLength;
+	
+	// The frame read last, sequential reads usually need it again. Written frames never change,
+	// so only truncate, which rewrites one, has to forget it.
+	private final byte[] decoded;
+	private int decodedFrame = -1;
+	
+	// The fastest level, compressing costs the import little and still shrinks records about threefold.
+	private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+	private final Inflater inflater = new Inflater();
+	private byte[] compressed;
+	
+	private BlockStore(int blockSize) {
+		this.blockSize = blockSize;
+		this.pending = new byte[blockSize];
+		this.decoded = new byte[blockSize];
+		this.compressed = new byte[blockSize + blockSize / 8 + 64];
+	}
+	
+	/**
+	 * Returns true iff the file is in our format.
+	 *
+	 * @param channel: the db file.
+	 * @throws IOException: throw exception if the file can't be read.
+	 */
+	static boolean isBlockFile(FileChannel channel) throws IOException {
+		if (channel.size() < FILE_HEADER_SIZE) {
+			return false;
+		}
+		
+		ByteBuffer magic = ByteBuffer.allocate(4);
+		readFully(channel, magic, 0);
+		
+		return magic.getInt(0) == MAGIC;
+	}
+	
+	/**
+	 * Starts a file over as an empty block store.
+	 *
+	 * @param channel: the db file.
+	 * @param blockSize: the most bytes a frame holds.
+	 * @return: the block store.
+	 * @throws IOException: throw exception if the file can't be written.
+	 */
+	static BlockStore create(FileChannel channel, int blockSize) throws IOException {
+		channel.truncate(0);
+		
+		ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+		header.putInt(MAGIC).putInt(VERSION).putInt(blockSize).flip();
+		writeFully(channel, header, 0);
+		
+		BlockStore store = new BlockStore(blockSize);
+		store.fileEnd = FILE_HEADER_SIZE;
+		
+		return store;
+	}
+	
+	/**
+	 * Opens an existing block store, rebuilding its block index from the frame headers.
+	 * A last frame running past the end of the file was being written when a run stopped,
+	 * it's cut off.
+	 *
+	 * @param channel: the db file.
+	 * @return: the block store.
+	 * @throws IOException: throw exception if the file isn't a valid block store.
+	 */
+	static BlockStore open(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+		readFully(channel, header, 0);
+		
+		if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) < 1) {
+			throw new IOException("Unsupported compressed db file.");
+		}
+		
+		BlockStore store = new BlockStore(header.getInt(8));
+		long size = channel.size();
+		long position = FILE_HEADER_SIZE;
+		ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+		
+		while (position + FRAME_HEADER_SIZE <= size) {
+			frame.clear();
+			readFully(channel, frame, position);
+			
+			int count = frame.getInt(0);
+			int compressedLength = frame.getInt(4);
+			
+			if (position + FRAME_HEADER_SIZE + compressedLength > size) {
+				break;
+			}
+			
+			if (count < 1 || compressedLength < 1 || store.length % store.blockSize + count > store.blockSize) {
+				throw new IOException("Corrupt compressed db file, bad frame at byte " + position + ".");
+			}
+			
+			store.addFrame(position, count);
+			position += FRAME_HEADER_SIZE + compressedLength;
+		}
+		
+		// Anything left is a frame that was never finished.
+		store.fileEnd = position;
+		channel.truncate(position);
+		
+		return store;
+	}
+	
+	/**
+	 * Returns the number of bytes stored, including any still waiting to be written.
+	 */
+	long length() {
+		return length + pendingLength;
+	}
+	
+	/**
+	 * Appends a record as a line, Latin-1 encoded. Frames are written as they fill up.
+	 *
+	 * @param channel: the db file.
+	 * @param record: the record.
+	 * @return: true iff a frame was written.
+	 * @throws IOException: throw exception if the file can't be written.
+	 */
+	boolean append(FileChannel channel, String record) throws IOException {
+		boolean wrote = false;
+		int room = blockSize - (int) (length % blockSize);
+		
+		for (int c = 0; c <= record.length(); c++) {
+			char ch = c < record.length() ? record.charAt(c) : '\n';
+			pending[pendingLength++] = ch <= 0xFF ? (byte) ch : (byte) '?';
+			
+			if (pendingLength == room) {
+				writeFrame(channel);
+				wrote = true;
+				room = blockSize;
+			}
+		}
+		
+		return wrote;
+	}
+	
+	/**
+	 * Writes out whatever appended bytes are still waiting, as a frame of their own.
+	 *
+	 * @param channel: the db file.
+	 * @throws IOException: throw exception if the file can't be written.
+	 */
+	void flush(FileChannel channel) throws IOException {
+		if (pendingLength > 0) {
+			writeFrame(channel);
+		}
+	}
+	
+	/**
+	 * Compresses the waiting bytes into a frame at the end of the file.
+	 */
+	private void writeFrame(FileChannel channel) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(pending, 0, pendingLength);
+		
+		deflater.reset();
+		deflater.setInput(pending, 0, pendingLength);
+		deflater.finish();
+		
+		int compressedLength = FRAME_HEADER_SIZE;
+		
+		while (!deflater.finished()) {
+			if (compressedLength == compressed.length) {
+				compressed = Arrays.copyOf(compressed, compressed.length * 2);
+			}
+			
+			compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+		}
+		
+		ByteBuffer frame = ByteBuffer.wrap(compressed, 0, compressedLength);
+		frame.putInt(0, pendingLength).putInt(4, compressedLength - FRAME_HEADER_SIZE).putInt(8, (int) crc.getValue());
+		writeFully(channel, frame, fileEnd);
+		
+		addFrame(fileEnd, pendingLength);
+		fileEnd += compressedLength;
+		pendingLength = 0;
+	}
+	
+	/**
+	 * Adds a frame to the end of the block index.
+	 */
+	private void addFrame(long position, int count) {
+		if (frames == starts.length) {
+			starts = Arrays.copyOf(starts, frames * 2);
+			positions = Arrays.copyOf(positions, frames * 2);
+		}
+		
+		starts[frames] = length;
+		positions[frames] = position;
+		frames++;
+		length += count;
+	}
+	
+	/**
+	 * Reads stored bytes into a buffer. Reading stops early at the end of the written frames.
+	 *
+	 * @param channel: the db file.
+	 * @param position: where the first byte is in the content.
+	 * @param buffer: receives the bytes.
+	 * @return: the number of bytes read.
+	 * @throws IOException: throw exception if the file can't be read or a frame is corrupt.
+	 */
+	int read(FileChannel channel, long position, byte[] buffer) throws IOException {
+		int copied = 0;
+		
+		if (position < 0 || position >= length) {
+			return 0;
+		}
+		
+		// The last frame starting at or before position.
+		int frame = Arrays.binarySearch(starts, 0, frames, position);
+		frame = frame >= 0 ? frame : -frame - 2;
+		
+		while (copied < buffer.length && frame < frames) {
+			int count = decode(channel, frame);
+			int from = (int) (position + copied - starts[frame]);
+			int n = Math.min(buffer.length - copied, count - from);
+			
+			System.arraycopy(decoded, from, buffer, copied, n);
+			copied += n;
+			frame++;
+		}
+		
+		return copied;
+	}
+	
+	/**
+	 * Cuts the stored bytes back to a given length. The frame holding the new end is rewritten
+	 * with just the bytes before it, the frames past it are dropped.
+	 *
+	 * @param channel: the db file.
+	 * @param newLength: the number of bytes to keep.
+	 * @throws IOException: throw exception if the file can't be written.
+	 */
+	void truncate(FileChannel channel, long newLength) throws IOException {
+		flush(channel);
+		
+		if (newLength >= length) {
+			return;
+		}
+		
+		int frame = Arrays.binarySearch(starts, 0, frames, newLength);
+		frame = frame >= 0 ? frame : -frame - 2;
+		
+		int keep = (int) (newLength - starts[frame]);
+		
+		if (keep > 0) {
+			decode(channel, frame);
+			System.arraycopy(decoded, 0, pending, 0, keep);
+		}
+		
+		frames = frame;
+		length = starts[frame];
+		fileEnd = positions[frame];
+		pendingLength = keep;
+		decodedFrame = -1;
+		
+		flush(channel);
+		channel.truncate(fileEnd);
+	}
+	
+	/**
+	 * Decompresses a frame into decoded, unless it's there already.
+	 *
+	 * @return: the number of bytes in the frame.
+	 */
+	private int decode(FileChannel channel, int frame) throws IOException {
+		long end = frame + 1 < frames ? starts[frame + 1] : length;
+		int count = (int) (end - starts[frame]);
+		
+		if (frame == decodedFrame) {
+			return count;
+		}
+		
+		// A frame runs up to the next one, so it's read whole, header and all.
+		int frameLength = (int) ((frame + 1 < frames ? positions[frame + 1] : fileEnd) - positions[frame]);
+		
+		if (compressed.length < frameLength) {
+			compressed = new byte[frameLength];
+		}
+		
+		ByteBuffer bytes = ByteBuffer.wrap(compressed, 0, frameLength);
+		readFully(channel, bytes, positions[frame]);
+		
+		int compressedLength = bytes.getInt(4);
+		
+		if (compressedLength != frameLength - FRAME_HEADER_SIZE) {
+			throw new IOException("Corrupt compressed db file, bad frame at byte " + positions[frame] + ".");
+		}
+		
+		inflater.reset();
+		inflater.setInput(compressed, FRAME_HEADER_SIZE, compressedLength);
+		int inflated;
+		
+		try {
+			inflated = inflater.inflate(decoded, 0, count);
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupt compressed db file, frame at byte " + positions[frame] + ": " + e.getMessage());
+		}
+		
+		CRC32 crc = new CRC32();
+		crc.update(decoded, 0, inflated);
+		
+		if (inflated != count || !inflater.finished() || (int) crc.getValue() != bytes.getInt(8)) {
+			throw new IOException("Corrupt compressed db file, frame at byte " + positions[frame] + " doesn't match its checksum.");
+		}
+		
+		decodedFrame = frame;
+		return count;
+	}
+	
+	/**
+	 * Reads from the file until the buffer is full.
+	 */
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of compressed db file.");
+			}
+		}
+	}
+	
+	/**
+	 * Writes the whole buffer to the file.
+	 */
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer, position + buffer.position());
+		}
+	}
+	
+}
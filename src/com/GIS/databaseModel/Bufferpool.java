@@ -3,94 +3,166 @@ package com.GIS.databaseModel;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.Map;
 
 /**
- * A Bufferpool with an LRU implementation.
+ * A Bufferpool holding as many records as fit in a budget of bytes.
  * Should make searching for records by cutting down on the amount of disk accesses.
- * 
+ * Which record is given up when the pool runs over budget is left to an EvictionPolicy,
+ * strict LRU by default.
+ *
  * @author Mansour Najah
  */
 public class Bufferpool {
 	
 	/**
 	 * Internal node class to represent the items in the Bufferpool.
-	 * 
+	 * Nodes link to each other directly, so policies can reorder them in constant time.
+	 *
 	 * @author Mansour Najah
 	 */
-	class Node {
+	static class Node {
+		// Queues a node can be in, for policies that keep more than one.
+		static final int IN = 0, MAIN = 1;
+		
 		String val;
 		long key;
+		long weight;
+		
+		// Policy bookkeeping.
+		Node prev, next;
+		int queue;
+		boolean referenced;
 		
 		/**
 		 * Each node has a string value and key associated with it.
-		 * 
+		 *
 		 * @param val: string representing our object in the pool.
 		 * @param key: a number to let us fetch the object.
 		 */
 		public Node(String val, long key) {
 			this.val = val;
 			this.key = key;
+			this.weight = weigh(val);
 		}
 	}
 	
+	// Default number of bytes our Bufferpool caches, roughly 15 GNIS records.
+	public static final long DEFAULT_BUDGET = 4096;
+	
+	// Estimated bytes each cached record costs beyond its characters: the node, its map
+	// entry, the boxed key and the String header.
+	private static final long NODE_OVERHEAD = 128;
+	
 	// Objects that represent the attributes of our Bufferpool.
 	private Map<Long, Node> cacheMap;
-	private LinkedList<Node> elemOrder;
-	private int capacity;
+	private EvictionPolicy policy;
+	private long budget;
+	private long usedBytes;
+	
+	// Counters reported by "show pool".
+	private long hits, misses, evictions;
 	
 	/**
-	 * Default constructor, creates a Bufferpool with a default capacity
-	 * of 15.
+	 * Default constructor, creates an LRU Bufferpool with a default budget
+	 * of 4 KB.
 	 */
 	public Bufferpool() {
-		cacheMap = new HashMap<>();
-		elemOrder = new LinkedList<>();
-		capacity = 15;
+		this(DEFAULT_BUDGET);
 	}
 	
 	/**
-	 * Bufferpool that allows client to assign a value to capacity.
-	 * 
-	 * @param capacity: the amount of objects that the Bufferpool can cache.
+	 * LRU Bufferpool that allows client to assign a budget.
+	 *
+	 * @param budget: the amount of bytes that the Bufferpool can cache.
 	 */
-	public Bufferpool(int capacity) {
+	public Bufferpool(long budget) {
+		this(budget, new LruPolicy());
+	}
+	
+	/**
+	 * Bufferpool that allows client to assign a budget and an eviction policy.
+	 *
+	 * @param budget: the amount of bytes that the Bufferpool can cache.
+	 * @param policy: decides which records are evicted, must not be shared with another pool.
+	 */
+	public Bufferpool(long budget, EvictionPolicy policy) {
+		if (budget < 1) {
+			throw new IllegalArgumentException("Bufferpool budget must be positive.");
+		}
+		
 		cacheMap = new HashMap<>();
-		elemOrder = new LinkedList<>();
-		this.capacity = capacity;
+		this.budget = budget;
+		this.policy = policy;
 	}
 	
 	/**
-	 * Moves target node to head.
-	 * 
-	 * @param node: the node to be moved.
+	 * Estimates how many bytes a cached record costs.
+	 *
+	 * @param val: the record.
+	 * @return: its estimated size in bytes.
 	 */
-	private void goToHead(Node node) {
-		elemOrder.remove(node);
-		elemOrder.addFirst(node);
+	static long weigh(String val) {
+		return NODE_OVERHEAD + val.length();
+	}
+	
+	/**
+	 * Returns the amount of bytes that the Bufferpool can cache.
+	 */
+	public long getBudget() {
+		return budget;
+	}
+	
+	/**
+	 * Returns the amount of bytes currently cached.
+	 */
+	public long getUsedBytes() {
+		return usedBytes;
+	}
+	
+	/**
+	 * Returns the name of the eviction policy in use.
+	 */
+	public String getPolicyName() {
+		return policy.getName();
+	}
+	
+	public long getHits() {
+		return hits;
+	}
+	
+	public long getMisses() {
+		return misses;
+	}
+	
+	public long getEvictions() {
+		return evictions;
 	}
 	
 	/**
 	 * Fetch specific object using a key to search in our pool.
-	 * 
+	 *
 	 * @param key: the key to target our object.
 	 * @return: the object's string value.
 	 */
 	public String getElem(long key) {
 		Node node = cacheMap.get(key);
 		
-		if (node == null)
+		if (node == null) {
+			misses++;
+			policy.onMiss(key);
 			return null;
+		}
 		
-		goToHead(node);
+		hits++;
+		policy.onHit(node);
 		
 		return node.val;
 	}
 	
 	/**
 	 * Inserts a new element into our pool.
-	 * 
+	 *
 	 * @param val: the string value of this new element.
 	 * @param key: the key value for this new element.
 	 */
@@ -99,38 +171,63 @@ public class Bufferpool {
 		
 		// Check to see if we have an empty place to insert our object.
 		if (node == null) {
-			Node newNode = new Node(val, key);
-			
-			cacheMap.put(key, newNode);
-			elemOrder.addFirst(newNode);
-			
-			// Resize if necessary.
-			if (cacheMap.size() > capacity) {
-				Node tail = elemOrder.removeLast();
-				cacheMap.remove(tail.key);
-			}
+			node = new Node(val, key);
+			cacheMap.put(key, node);
 		}
 		
-		// If not, we'll apply LRU policy.
+		// If not, the old value makes way for the new one.
 		else {
+			policy.remove(node);
+			usedBytes -= node.weight;
+			
 			node.val = val;
-			goToHead(node);
+			node.weight = weigh(val);
+		}
+		
+		policy.onInsert(node);
+		usedBytes += node.weight;
+		
+		// Evict until we're back within budget.
+		while (usedBytes > budget) {
+			Node victim = policy.evict();
+			
+			cacheMap.remove(victim.key);
+			usedBytes -= victim.weight;
+			evictions++;
+		}
+	}
+	
+	/**
+	 * Drops an element from our pool, if it's there.
+	 *
+	 * @param key: the key of the element to be dropped.
+	 * @return: true iff the element was cached.
+	 */
+	public boolean removeElem(long key) {
+		Node node = cacheMap.remove(key);
+		
+		if (node == null) {
+			return false;
 		}
+		
+		policy.remove(node);
+		usedBytes -= node.weight;
+		
+		return true;
 	}
 	
 	/**
 	 * Displays the current content of the Bufferpool.
-	 * 
+	 *
 	 * @param fw: FileWriter object that will write to our log.
 	 * @throws IOException: throws an exception if the file isn't found.
 	 */
 	public void display(FileWriter fw) throws IOException {
-		fw.write("MRU\n");
-		
-		for (int i = 0; i < elemOrder.size(); i++)
-			fw.write("\t" + elemOrder.get(i).key + " " + elemOrder.get(i).val + "\n");
+		fw.write("Policy: " + policy.getName() + ", " + cacheMap.size() + " cached, "
+				+ usedBytes + " of " + budget + " bytes used\n");
+		fw.write("Hits: " + hits + ", misses: " + misses + ", evictions: " + evictions + "\n");
 		
-		fw.write("LRU");
+		policy.display(fw);
 	}
 
 }
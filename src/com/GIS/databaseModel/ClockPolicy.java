@@ -0,0 +1,64 @@
+package com.GIS.databaseModel;
+
+import java.io.FileWriter;
+import java.io.IOException;
+
+import com.GIS.databaseModel.Bufferpool.Node;
+
+/**
+ * CLOCK (second chance) eviction. A hit only sets the node's reference bit instead of
+ * reordering anything. The hand sweeps from the oldest node, giving referenced nodes
+ * another lap, so one pass over many cold records can't flush out hot ones that were
+ * touched since the hand last passed.
+ * 
+ * @author Mansour Najah
+ */
+public class ClockPolicy implements EvictionPolicy {
+	
+	// Newest node at the head, the hand sits at the tail.
+	private final NodeList ring = new NodeList();
+	
+	@Override
+	public String getName() {
+		return "CLOCK";
+	}
+	
+	@Override
+	public void onHit(Node node) {
+		node.referenced = true;
+	}
+	
+	@Override
+	public void onMiss(long key) {
+	}
+	
+	@Override
+	public void onInsert(Node node) {
+		node.referenced = false;
+		ring.addFirst(node);
+	}
+	
+	@Override
+	public void remove(Node node) {
+		ring.unlink(node);
+	}
+	
+	@Override
+	public Node evict() {
+		// Clear reference bits as the hand passes, the first unreferenced node goes.
+		while (ring.tail().referenced) {
+			Node node = ring.tail();
+			node.referenced = false;
+			ring.moveToFront(node);
+		}
+		
+		return ring.removeLast();
+	}
+	
+	@Override
+	public void display(FileWriter fw) throws IOException {
+		fw.write("Newest\n");
+		ring.display(fw);
+		fw.write("Hand");
+	}
+}
@@ -0,0 +1,494 @@
+package com.GIS.databaseModel;
+
+import java.io.Closeable;
+import java.io.DataOutput;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Set;
+
+import com.GIS.util.FieldTokenizer;
+import com.GIS.util.StringDictionary;
+import com.GIS.world.CoordinateParser;
+
+/**
+ * The columns of our records that queries log, kept in a file of their own next to the db file
+ * so a query can read just those instead of whole records. Written at import time, one row per
+ * record in db file order.
+ *
+ * A row is both coordinates, packed into an int each, see CoordinateParser.pack, then the state
+ * and county as 16 bit codes into a dictionary of each, since they repeat across thousands of
+ * records, then the name in Latin-1. That's 12 bytes and the name, against the 150 or so of a
+ * whole record. Rows are read back by way of a PageCache, so neighbouring features, whose rows
+ * were written together, mostly come out of pages already cached.
+ *
+ * The dictionaries stay in memory, as does a directory of each row's db file offset and where
+ * the row starts in our file, so rows are found by binary searching their offsets. Both are
+ * saved in index snapshots, along with the length of our file, which is checked when they're
+ * loaded back.
+ *
+ * @author Mansour Najah
+ */
+final class ColumnStore implements PageCache.Source, Closeable {
+	
+	/**
+	 * The rows of one batch of records, built on an import's worker thread and appended to the
+	 * store in file order. Values are looked up in the dictionaries only once they're appended,
+	 * so workers share nothing.
+	 */
+	static final class Rows {
+		private final long[] offsets;
+		private final int[] latitudes;
+		private final int[] longitudes;
+		private final String[] states;
+		private final String[] counties;
+		private final int[] nameEnds;
+		private byte[] names;
+		private int size;
+		private int nameBytes;
+		
+		/**
+		 * @param capacity: the number of records in the batch.
+		 */
+		Rows(int capacity) {
+			offsets = new long[capacity];
+			latitudes = new int[capacity];
+			longitudes = new int[capacity];
+			states = new String[capacity];
+			counties = new String[capacity];
+			nameEnds = new int[capacity];
+			names = new byte[capacity * 16];
+		}
+		
+		/**
+		 * Adds a record's row.
+		 *
+		 * @param offset: the record's db file offset.
+		 * @param fields: the record, tokenized.
+		 */
+		void add(long offset, FieldTokenizer fields) {
+			CharSequence record = fields.record();
+			
+			offsets[size] = offset;
+			latitudes[size] = CoordinateParser.pack(record, fields.start(7), fields.end(7));
+			longitudes[size] = CoordinateParser.pack(record, fields.start(8), fields.end(8));
+			states[size] = repeat(states, fields, 3);
+			counties[size] = repeat(counties, fields, 5);
+			
+			int start = fields.start(1);
+			int length = fields.length(1);
+			
+			if (nameBytes + length > names.length) {
+				names = Arrays.copyOf(names, Math.max(names.length * 2, nameBytes + length));
+			}
+			
+			for (int i = 0; i < length; i++) {
+				char ch = record.charAt(start + i);
+				names[nameBytes++] = ch <= 0xFF ? (byte) ch : (byte) '?';
+			}
+			
+			nameEnds[size++] = nameBytes;
+		}
+		
+		/**
+		 * Returns a field, reusing the last row's value if it's the same. Records come grouped
+		 * by state and county, so most rows copy nothing.
+		 */
+		private String repeat(String[] column, FieldTokenizer fields, int field) {
+			if (size > 0 && fields.fieldEquals(field, column[size - 1])) {
+				return column[size - 1];
+			}
+			
+			return fields.field(field);
+		}
+	}
+	
+	// Bytes of a row ahead of its name: both coordinates, then the state and county codes.
+	private static final int ROW_HEADER = 4 + 4 + 2 + 2;
+	
+	private final String file;
+	private final StringDictionary states;
+	private final StringDictionary counties = new StringDictionary();
+	
+	// The directory, one entry per row: its record's db file offset, and where it starts in our file.
+	private long[] offsets = new long[1024];
+	private long[] positions = new long[1024];
+	private int rows;
+	
+	// Bytes of rows in our file, and how many their states and counties would take as Strings.
+	private long length;
+	private long stringBytes;
+	
+	// Opened by the first append or read, and kept open until close().
+	private FileChannel channel;
+	
+	/**
+	 * Returns the path of the column file kept for a db file.
+	 *
+	 * @param dbFile: path to the database file.
+	 * @return: path to its column file.
+	 */
+	static String columnsFile(String dbFile) {
+		return dbFile + ".columns";
+	}
+	
+	/**
+	 * Creates an empty store. Its file is started over by the first append.
+	 *
+	 * @param file: path to the column file.
+	 * @param states: the dictionary to code states with, shared with our name index's keys.
+	 */
+	ColumnStore(String file, StringDictionary states) {
+		this.file = file;
+		this.states = states;
+	}
+	
+	/**
+	 * Returns the dictionary our states are coded with.
+	 */
+	StringDictionary states() {
+		return states;
+	}
+	
+	/**
+	 * Returns the number of rows.
+	 */
+	int size() {
+		return rows;
+	}
+	
+	/**
+	 * Returns the number of bytes of rows in our file.
+	 */
+	long fileLength() {
+		return length;
+	}
+	
+	/**
+	 * Opens our file, unless it's still open. An empty store starts it over, otherwise it must
+	 * hold just our rows.
+	 *
+	 * @return: the file.
+	 * @throws IOException: throw exception if the file can't be opened or doesn't match our rows.
+	 */
+	private synchronized FileChannel channel() throws IOException {
+		if (channel != null) {
+			return channel;
+		}
+		
+		if (length == 0) {
+			channel = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			return channel;
+		}
+		
+		FileChannel opened = FileChannel.open(Paths.get(file), StandardOpenOption.READ, StandardOpenOption.WRITE);
+		long size = opened.size();
+		
+		if (size != length) {
+			opened.close();
+			throw new IOException(file + " holds " + size + " bytes, its column store expects " + length + ".");
+		}
+		
+		channel = opened;
+		return channel;
+	}
+	
+	/**
+	 * Closes our file as long as it's open. The next append or read opens it again.
+	 *
+	 * @throws IOException: throw exception if the file can't be closed.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+			channel = null;
+		}
+	}
+	
+	/**
+	 * Appends a batch of rows to our file. Their offsets must follow every row's already in the store.
+	 *
+	 * @param batch: the rows.
+	 * @throws IOException: throw exception if the file can't be written.
+	 */
+	void append(Rows batch) throws IOException {
+		if (batch.size == 0) {
+			return;
+		}
+		
+		if (rows > 0 && batch.offsets[0] <= offsets[rows - 1]) {
+			throw new IllegalArgumentException("Rows must be appended in db file order.");
+		}
+		
+		ensureCapacity(rows + batch.size);
+		
+		ByteBuffer bytes = ByteBuffer.allocate(batch.size * ROW_HEADER + batch.nameBytes);
+		char state = 0, county = 0;
+		
+		for (int i = 0; i < batch.size; i++) {
+			// A value repeated from the row before is the same String, and has the same code.
+			if (i == 0 || batch.states[i] != batch.states[i - 1]) {
+				state = code(states, batch.states[i]);
+			}
+			
+			if (i == 0 || batch.counties[i] != batch.counties[i - 1]) {
+				county = code(counties, batch.counties[i]);
+			}
+			
+			int nameStart = i == 0 ? 0 : batch.nameEnds[i - 1];
+			
+			offsets[rows + i] = batch.offsets[i];
+			positions[rows + i] = length + bytes.position();
+			bytes.putInt(batch.latitudes[i]).putInt(batch.longitudes[i]).putChar(state).putChar(county)
+					.put(batch.names, nameStart, batch.nameEnds[i] - nameStart);
+			stringBytes += batch.states[i].length() + batch.counties[i].length();
+		}
+		
+		FileChannel out = channel();
+		bytes.flip();
+		
+		while (bytes.hasRemaining()) {
+			out.write(bytes, length + bytes.position());
+		}
+		
+		rows += batch.size;
+		length += bytes.limit();
+	}
+	
+	/**
+	 * Returns a value's code in a dictionary, which must fit our 16 bit columns.
+	 */
+	private static char code(StringDictionary dictionary, String value) {
+		int code = dictionary.encode(value);
+		
+		if (code > Character.MAX_VALUE) {
+			throw new IllegalStateException("More than " + (Character.MAX_VALUE + 1) + " distinct values in a column.");
+		}
+		
+		return (char) code;
+	}
+	
+	/**
+	 * Makes room in the directory for a number of rows.
+	 */
+	private void ensureCapacity(int rowCount) {
+		if (rowCount > offsets.length) {
+			int capacity = Math.max(offsets.length * 2, rowCount);
+			
+			offsets = Arrays.copyOf(offsets, capacity);
+			positions = Arrays.copyOf(positions, capacity);
+		}
+	}
+	
+	/**
+	 * Reads bytes of our file into a buffer, for a PageCache. Reading stops early at the end of our rows.
+	 *
+	 * @param position: the offset of the first byte.
+	 * @param buffer: receives the bytes.
+	 * @return: the number of bytes read.
+	 * @throws IOException: throw exception if the file can't be read.
+	 */
+	@Override
+	public int readBlock(long position, byte[] buffer) throws IOException {
+		FileChannel in = channel();
+		ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, (int) Math.max(0, Math.min(buffer.length, length - position)));
+		
+		while (bytes.hasRemaining()) {
+			if (in.read(bytes, position + bytes.position()) < 0) {
+				break;
+			}
+		}
+		
+		return bytes.position();
+	}
+	
+	/**
+	 * Builds a feature from the row of the record at an offset, decoding just the columns asked for.
+	 * Only the part of the row they need is read, the name is left out unless it's asked for.
+	 *
+	 * @param pages: the cache to read our file through.
+	 * @param offset: the record's db file offset.
+	 * @param columns: the columns to decode, RECORD is left to the caller.
+	 * @param record: the whole record if it was asked for, otherwise null.
+	 * @return: the feature.
+	 * @throws IOException: throw exception if no row has that offset, or its row can't be read.
+	 */
+	Feature project(PageCache pages, long offset, Set<Feature.Column> columns, String record) throws IOException {
+		int row = Arrays.binarySearch(offsets, 0, rows, offset);
+		
+		if (row < 0) {
+			throw new IOException("The column store has no row for the record at offset " + offset + ".");
+		}
+		
+		boolean name = columns.contains(Feature.Column.NAME);
+		boolean coded = name || columns.contains(Feature.Column.STATE) || columns.contains(Feature.Column.COUNTY)
+				|| columns.contains(Feature.Column.LATITUDE) || columns.contains(Feature.Column.LONGITUDE);
+		
+		if (!coded) {
+			return new Feature(null, null, null, CoordinateParser.UNKNOWN_PACKED, CoordinateParser.UNKNOWN_PACKED, record);
+		}
+		
+		long end = row + 1 < rows ? positions[row + 1] : length;
+		int needed = name ? (int) (end - positions[row]) : ROW_HEADER;
+		String bytes = pages.getRange(this, positions[row], needed);
+		
+		if (bytes.length() != needed) {
+			throw new IOException(file + " ends inside the row of the record at offset " + offset + ".");
+		}
+		
+		char state = readChar(bytes, 8);
+		char county = readChar(bytes, 10);
+		
+		if (state >= states.size() || county >= counties.size()) {
+			throw new IOException(file + " is corrupt, the row of the record at offset " + offset + " has a bad code.");
+		}
+		
+		return new Feature(name ? bytes.substring(ROW_HEADER) : null,
+				columns.contains(Feature.Column.STATE) ? states.decode(state) : null,
+				columns.contains(Feature.Column.COUNTY) ? counties.decode(county) : null,
+				columns.contains(Feature.Column.LATITUDE) ? readInt(bytes, 0) : CoordinateParser.UNKNOWN_PACKED,
+				columns.contains(Feature.Column.LONGITUDE) ? readInt(bytes, 4) : CoordinateParser.UNKNOWN_PACKED,
+				record);
+	}
+	
+	/**
+	 * Reads a big-endian int out of bytes held one per char.
+	 */
+	private static int readInt(String bytes, int at) {
+		return readChar(bytes, at) << 16 | readChar(bytes, at + 2);
+	}
+	
+	/**
+	 * Reads a big-endian char out of bytes held one per char.
+	 */
+	private static char readChar(String bytes, int at) {
+		return (char) (bytes.charAt(at) << 8 | bytes.charAt(at + 1));
+	}
+	
+	/**
+	 * Returns the number of bytes our directory and dictionaries hold in memory, leaving out unused capacity.
+	 */
+	long bytes() {
+		return rows * (8L + 8) + states.bytes() + counties.bytes();
+	}
+	
+	/**
+	 * Writes the store's dictionaries and directory, for an index snapshot. The rows stay in our file.
+	 *
+	 * @param out: where to write it.
+	 * @throws IOException: throw exception if it can't be written.
+	 */
+	void write(DataOutput out) throws IOException {
+		for (StringDictionary dictionary : new StringDictionary[] {states, counties}) {
+			out.writeInt(dictionary.size());
+			
+			for (int code = 0; code < dictionary.size(); code++) {
+				byte[] bytes = dictionary.decode(code).getBytes(StandardCharsets.ISO_8859_1);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+		}
+		
+		out.writeInt(rows);
+		out.writeLong(length);
+		out.writeLong(stringBytes);
+		
+		for (int row = 0; row < rows; row++) {
+			out.writeLong(offsets[row]);
+			out.writeLong(positions[row]);
+		}
+	}
+	
+	/**
+	 * Reads a store written by write, and checks that its file still holds just its rows.
+	 *
+	 * @param in: positioned at the store.
+	 * @param file: path to the store's column file.
+	 * @param states: an empty dictionary to read the store's states into.
+	 * @return: the store, with its file open.
+	 * @throws IOException: throw exception if the store doesn't hang together, or doesn't match its file.
+	 */
+	static ColumnStore read(ByteBuffer in, String file, StringDictionary states) throws IOException {
+		ColumnStore store = new ColumnStore(file, states);
+		
+		for (StringDictionary dictionary : new StringDictionary[] {store.states, store.counties}) {
+			int size = in.getInt();
+			
+			for (int i = 0; i < size; i++) {
+				byte[] bytes = new byte[in.getInt()];
+				in.get(bytes);
+				dictionary.encode(new String(bytes, StandardCharsets.ISO_8859_1));
+			}
+			
+			if (dictionary.size() != size) {
+				throw new IOException("Corrupt column store, a dictionary repeats a value.");
+			}
+		}
+		
+		int rows = in.getInt();
+		long length = in.getLong();
+		long stringBytes = in.getLong();
+		
+		if (rows < 0 || length < (long) rows * ROW_HEADER || stringBytes < 0) {
+			throw new IOException("Corrupt column store, found " + rows + " rows in " + length + " bytes.");
+		}
+		
+		store.ensureCapacity(rows);
+		
+		for (int row = 0; row < rows; row++) {
+			store.offsets[row] = in.getLong();
+			store.positions[row] = in.getLong();
+			
+			boolean ordered = row == 0 ? store.positions[row] == 0 : store.offsets[row] > store.offsets[row - 1]
+					&& store.positions[row] >= store.positions[row - 1] + ROW_HEADER;
+			
+			if (!ordered || store.positions[row] + ROW_HEADER > length) {
+				throw new IOException("Corrupt column store, bad row " + row + ".");
+			}
+		}
+		
+		store.rows = rows;
+		store.length = length;
+		store.stringBytes = stringBytes;
+		
+		if (rows > 0) {
+			store.channel();
+		}
+		
+		return store;
+	}
+	
+	/**
+	 * Displays how many rows and distinct values our store holds, and how many bytes they take.
+	 *
+	 * @param fw: FileWriter object that will write to our log.
+	 * @throws IOException: throws an exception if the file isn't found.
+	 */
+	void display(FileWriter fw) throws IOException {
+		fw.write("Rows: " + rows + "\n");
+		fw.write("States: " + states.size() + ", counties: " + counties.size() + "\n");
+		fw.write("Column file: " + length + " bytes\n");
+		fw.write("In memory: " + bytes() + " bytes\n");
+	}
+	
+	/**
+	 * Displays what coding our states and counties saves over keeping them as a String per row.
+	 *
+	 * @param fw: FileWriter object that will write to our log.
+	 * @throws IOException: throws an exception if the file isn't found.
+	 */
+	void displayDictionaries(FileWriter fw) throws IOException {
+		long coded = rows * 4L + states.bytes() + counties.bytes();
+		
+		fw.write("Column dictionaries: " + states.size() + " states, " + counties.size() + " counties, " + coded + " bytes\n");
+		fw.write("Saved over per row strings: " + (stringBytes - coded) + " bytes\n");
+	}
+	
+}
@@ -0,0 +1,225 @@
+package com.GIS.databaseModel;
+
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * A Bufferpool that can be shared by many query threads.
+ * The budget is split between independent segments, each a Bufferpool with its own eviction
+ * policy guarded by its own lock. A record's segment is picked from its offset, so threads
+ * fetching different records rarely wait on each other.
+ *
+ * @author Mansour Najah
+ */
+public class ConcurrentBufferpool {
+	
+	// Default number of segments, the most we'll split a budget into.
+	public static final int DEFAULT_SEGMENTS = 16;
+	
+	// Smallest budget worth giving a segment, a handful of db file pages.
+	private static final long MIN_SEGMENT_BUDGET = 64 * 1024;
+	
+	// Each segment is locked while it's being read or changed.
+	private final Bufferpool[] segments;
+	private final int segmentMask;
+	private final long budget;
+	
+	/**
+	 * Creates a concurrent Bufferpool with a default budget of 4 KB, evicting by LRU.
+	 */
+	public ConcurrentBufferpool() {
+		this(Bufferpool.DEFAULT_BUDGET, "lru");
+	}
+	
+	/**
+	 * Creates a concurrent Bufferpool with up to 16 segments.
+	 *
+	 * @param budget: the amount of bytes that the Bufferpool can cache.
+	 * @param policyName: the name of each segment's eviction policy, see EvictionPolicy.forName.
+	 */
+	public ConcurrentBufferpool(long budget, String policyName) {
+		this(budget, policyName, DEFAULT_SEGMENTS);
+	}
+	
+	/**
+	 * Creates a concurrent Bufferpool. The number of segments is rounded down to a power of two,
+	 * and lowered until each segment gets at least 64 KB, so small budgets use a single segment.
+	 *
+	 * @param budget: the amount of bytes that the Bufferpool can cache.
+	 * @param policyName: the name of each segment's eviction policy, see EvictionPolicy.forName.
+	 * @param maxSegments: the most segments to split the budget into.
+	 */
+	public ConcurrentBufferpool(long budget, String policyName, int maxSegments) {
+		if (budget < 1) {
+			throw new IllegalArgumentException("Bufferpool budget must be positive.");
+		}
+		if (maxSegments < 1) {
+			throw new IllegalArgumentException("Bufferpool needs at least one segment.");
+		}
+		
+		int count = Integer.highestOneBit(maxSegments);
+		
+		while (count > 1 && budget / count < MIN_SEGMENT_BUDGET) {
+			count >>= 1;
+		}
+		
+		this.budget = budget;
+		segments = new Bufferpool[count];
+		segmentMask = count - 1;
+		
+		// Segment budgets add up to the whole budget, the first ones take the remainder.
+		for (int i = 0; i < count; i++) {
+			long segmentBudget = budget / count + (i < budget % count ? 1 : 0);
+			segments[i] = new Bufferpool(segmentBudget, EvictionPolicy.forName(policyName, segmentBudget));
+		}
+	}
+	
+	/**
+	 * Picks the segment responsible for a key. Offsets are mixed first since
+	 * neighbouring records would otherwise crowd into the same few segments.
+	 *
+	 * @param key: the record's offset.
+	 * @return: its segment.
+	 */
+	private Bufferpool segmentFor(long key) {
+		long mixed = key * 0x9E3779B97F4A7C15L;
+		return segments[(int) (mixed >>> 32) & segmentMask];
+	}
+	
+	/**
+	 * Returns the number of segments the budget is split into.
+	 */
+	public int getSegmentCount() {
+		return segments.length;
+	}
+	
+	/**
+	 * Returns the amount of bytes that the Bufferpool can cache.
+	 */
+	public long getBudget() {
+		return budget;
+	}
+	
+	/**
+	 * Returns the amount of bytes currently cached, summed over every segment.
+	 */
+	public long getUsedBytes() {
+		long used = 0;
+		
+		for (Bufferpool segment : segments) {
+			synchronized (segment) {
+				used += segment.getUsedBytes();
+			}
+		}
+		
+		return used;
+	}
+	
+	public long getHits() {
+		long hits = 0;
+		
+		for (Bufferpool segment : segments) {
+			synchronized (segment) {
+				hits += segment.getHits();
+			}
+		}
+		
+		return hits;
+	}
+	
+	public long getMisses() {
+		long misses = 0;
+		
+		for (Bufferpool segment : segments) {
+			synchronized (segment) {
+				misses += segment.getMisses();
+			}
+		}
+		
+		return misses;
+	}
+	
+	public long getEvictions() {
+		long evictions = 0;
+		
+		for (Bufferpool segment : segments) {
+			synchronized (segment) {
+				evictions += segment.getEvictions();
+			}
+		}
+		
+		return evictions;
+	}
+	
+	/**
+	 * Fetch specific object using a key to search in our pool.
+	 *
+	 * @param key: the key to target our object.
+	 * @return: the object's string value, or null if it isn't cached.
+	 */
+	public String getElem(long key) {
+		Bufferpool segment = segmentFor(key);
+		
+		synchronized (segment) {
+			return segment.getElem(key);
+		}
+	}
+	
+	/**
+	 * Inserts a new element into our pool. If two threads miss on the same key,
+	 * the later insert simply replaces the earlier one.
+	 *
+	 * @param val: the string value of this new element.
+	 * @param key: the key value for this new element.
+	 */
+	public void insertElem(String val, long key) {
+		Bufferpool segment = segmentFor(key);
+		
+		synchronized (segment) {
+			segment.insertElem(val, key);
+		}
+	}
+	
+	/**
+	 * Drops an element from our pool, if it's there.
+	 *
+	 * @param key: the key of the element to be dropped.
+	 * @return: true iff the element was cached.
+	 */
+	public boolean removeElem(long key) {
+		Bufferpool segment = segmentFor(key);
+		
+		synchronized (segment) {
+			return segment.removeElem(key);
+		}
+	}
+	
+	/**
+	 * Displays the current content of the Bufferpool. A single segment is shown just
+	 * like a plain Bufferpool, otherwise the totals come first, then each segment.
+	 *
+	 * @param fw: FileWriter object that will write to our log.
+	 * @throws IOException: throws an exception if the file isn't found.
+	 */
+	public void display(FileWriter fw) throws IOException {
+		if (segments.length == 1) {
+			synchronized (segments[0]) {
+				segments[0].display(fw);
+			}
+			return;
+		}
+		
+		fw.write("Policy: " + segments[0].getPolicyName() + ", " + segments.length + " segments, "
+				+ getUsedBytes() + " of " + budget + " bytes used\n");
+		fw.write("Hits: " + getHits() + ", misses: " + getMisses() + ", evictions: " + getEvictions() + "\n");
+		
+		for (int i = 0; i < segments.length; i++) {
+			fw.write("\nSegment " + i + ":\n");
+			
+			synchronized (segments[i]) {
+				segments[i].display(fw);
+			}
+		}
+	}
+
+}
@@ -1,15 +1,23 @@
 package com.GIS.databaseModel;
 
+import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.function.BiConsumer;
 
-import com.GIS.hashtable.hashTable;
+import com.GIS.hashtable.openHashTable;
 import com.GIS.hashtable.nameEntry;
+import com.GIS.util.FieldTokenizer;
+import com.GIS.util.StringDictionary;
+import com.GIS.world.CoordinateParser;
 import com.GIS.world.Point;
 import com.GIS.world.prQuadTree;
 
@@ -22,148 +30,432 @@ public class DbController {
 	
 	private final String dbFileName;
 	
+	// Leaf capacity and depth limit for our world, keeps the tree shallow over dense imports.
+	private static final int WORLD_BUCKET_SIZE = 4;
+	private static final int WORLD_MAX_DEPTH = 24;
+	
 	// Essential objects to run our queries on.
 	private prQuadTree<Point> world;
-	private hashTable<nameEntry> table;
-	private Bufferpool bufferPool;
+	private openHashTable<nameEntry> table;
+	private PageCache bufferPool;
+	private ColumnStore columns;
+	
+	// Caches pages of our column store's file, set up like our buffer pool.
+	private PageCache columnPool;
+	
+	// Our db file, created or reopened by the first command that needs it.
+	private DbFileModel dbFile;
+	
+	// How our buffer pool was set up, so it can be set up again for a db file stored in another format.
+	private final long poolBudget;
+	private final String poolPolicy;
+	private DbFileModel.StorageFormat storageFormat;
+	
+	// Number of threads indexing each import.
+	private int importThreads = Runtime.getRuntime().availableProcessors();
+	
+	// Whether our db file stays open from the first command to shutdown.
+	private boolean persistentDbFile = true;
+	
+	/**
+	 * The part of our indices a worker builds from one batch of an import.
+	 * Names keep the order they first appear in, so merging batches in file order inserts
+	 * them into our table in the same order a single thread would.
+	 */
+	private static class PartialIndex {
+		final Map<nameEntry, nameEntry> names = new LinkedHashMap<>();
+		final List<Point> locations = new ArrayList<>();
+		// The locations inside our world, sorted into a run for a bulk load, if the import asked for one.
+		List<Point> run;
+		final ColumnStore.Rows rows;
+		long nameLengths;
+		
+		PartialIndex(int size) {
+			rows = new ColumnStore.Rows(size);
+		}
+	}
 	
 	/**
 	 * Create a new DbController object.
-	 * Initialize hash table to a size of 1024 with a load factor of 70%.
-	 * Our buffer pool will call the default constructor, creating a cache of size 15.
+	 * Initialize our open addressing hash table to a size of 1024 with a load factor of 70%.
+	 * Our world is a bucketed quadtree holding up to 4 locations per leaf.
+	 * Our buffer pool is a 64 KB LRU cache of 4 KB db file pages that query threads can share,
+	 * and our column store's file gets a cache of its own just like it.
 	 * 
 	 * @param dbFileName: the name of our db file.
 	 */
 	public DbController(String dbFileName) {
+		this(dbFileName, PageCache.DEFAULT_BUDGET, "lru");
+	}
+	
+	/**
+	 * Create a new DbController object whose buffer pool has a given budget and eviction policy.
+	 * 
+	 * @param dbFileName: the name of our db file.
+	 * @param poolBudget: the number of bytes our buffer pool can cache.
+	 * @param poolPolicy: the name of our buffer pool's eviction policy, see EvictionPolicy.forName.
+	 */
+	public DbController(String dbFileName, long poolBudget, String poolPolicy) {
+		this(dbFileName, poolBudget, poolPolicy, "text");
+	}
+	
+	/**
+	 * Create a new DbController object whose db file is stored in a given format. In deflate format
+	 * our buffer pool caches whole decompressed blocks, so a block is only decompressed once while
+	 * it stays cached.
+	 * 
+	 * @param dbFileName: the name of our db file.
+	 * @param poolBudget: the number of bytes our buffer pool can cache.
+	 * @param poolPolicy: the name of our buffer pool's eviction policy, see EvictionPolicy.forName.
+	 * @param storageFormat: the name of our db file's storage format, see DbFileModel.StorageFormat.forName.
+	 */
+	public DbController(String dbFileName, long poolBudget, String poolPolicy, String storageFormat) {
 		this.dbFileName = dbFileName;
-		world = new prQuadTree<>(0, 0, 0, 0);
-		table = new hashTable<nameEntry>(1024, 0.7);
-		bufferPool = new Bufferpool();
+		this.poolBudget = poolBudget;
+		this.poolPolicy = poolPolicy;
+		world = new prQuadTree<>(0, 0, 0, 0, WORLD_BUCKET_SIZE, WORLD_MAX_DEPTH);
+		table = new openHashTable<nameEntry>(1024, 0.7);
+		columns = new ColumnStore(ColumnStore.columnsFile(dbFileName), new StringDictionary());
+		columnPool = new PageCache(poolBudget, poolPolicy);
+		setStorageFormat(DbFileModel.StorageFormat.forName(storageFormat));
+	}
+	
+	/**
+	 * Replaces our column store, closing the old one's file. Pages cached from it are dropped with it.
+	 * 
+	 * @param newColumns: the new column store.
+	 * @throws IOException: throws exception if the old store's file can't be closed.
+	 */
+	private void replaceColumns(ColumnStore newColumns) throws IOException {
+		ColumnStore oldColumns = columns;
+		
+		columns = newColumns;
+		columnPool = new PageCache(poolBudget, poolPolicy);
+		oldColumns.close();
+	}
+	
+	/**
+	 * Sets up our buffer pool for a db file stored in a given format, unless it already is.
+	 * Pages are a block each in DEFLATE format.
+	 * 
+	 * @param storageFormat: the storage format.
+	 */
+	private void setStorageFormat(DbFileModel.StorageFormat storageFormat) {
+		if (storageFormat != this.storageFormat) {
+			this.storageFormat = storageFormat;
+			bufferPool = new PageCache(poolBudget, poolPolicy, storageFormat == DbFileModel.StorageFormat.DEFLATE
+					? DbFileModel.BLOCK_SIZE : PageCache.DEFAULT_PAGE_SIZE);
+		}
 	}
 	
 	/**
-	 * Inserts a feature and uses its name and state abbreviation as a key for the hash table.
+	 * Opens our db file, creating it in our storage format on the first call. Unless told otherwise
+	 * it's persistent, so it's opened once and stays open until shutdown() rather than being opened
+	 * and closed by every command.
 	 * 
-	 * @param values: the record being inserted.
-	 * @param offset: the file offset of our record.
-	 * @return: returns true after successfully inserting.
+	 * @return: our db file.
+	 * @throws IOException: throws exception if the file can't be opened.
 	 */
-	private boolean tableInsert(String[] values, long offset) {
-		nameEntry entry = new nameEntry(values[1] + "|" + values[3], offset);
-		nameEntry target = table.find(entry);
+	private synchronized DbFileModel openDbFile() throws IOException {
+		if (dbFile == null) {
+			dbFile = new DbFileModel(dbFileName, false, storageFormat, persistentDbFile);
+		}
 		
-		// If the location is not empty, add a location offset. Else, we'll just insert.
-		if (target != null) {
-			return target.addLocation(offset);
+		return dbFile.open();
+	}
+	
+	/**
+	 * Opens our db file, reopening it as it is on the first call. Either way it stays open from
+	 * now on. Our buffer pool is set up again if the file turns out to be stored in another format than ours.
+	 * 
+	 * @return: our db file.
+	 * @throws IOException: throws exception if the file isn't found or isn't a valid db file.
+	 */
+	private synchronized DbFileModel reopenDbFile() throws IOException {
+		if (dbFile == null) {
+			dbFile = new DbFileModel(dbFileName, true, storageFormat, true);
 		} else {
-			table.insert(entry);
+			dbFile.makePersistent();
 		}
 		
-		return true;
+		setStorageFormat(dbFile.getStorageFormat());
+		
+		return dbFile.open();
 	}
 	
-	 /**
-     * Converts DMS format into an integer to be used by the Point class.
-     * @param dms coverted string
-     * @return Radians in seconds
-     * */
-    private int DMSToInt(String DMS) {
-
-    	// Checks the Unknown case for certain records.
-        if (DMS == null || DMS.equals("Unknown")) {
-            return 181 * 3600;
-
-        }
-
-        char dir = DMS.charAt(DMS.length()-1);
-        int result = 0;
-        
-        // Depending on coord. direction, we'll do some string math for DMS to integer conversion.
-        if (dir=='N') {
-        	String n1 = DMS.substring(0, 2);
-            String n2 = DMS.substring(2,4);
-            String n3 = DMS.substring(4,6);
-            
-            result += Integer.parseInt(n1)*3600;
-            result += (Integer.parseInt(n2) * 60);
-            result += Integer.parseInt(n3);
-
-        } else if (dir=='W') {
-            String w1 = DMS.substring(0, 3);
-            String w2 = DMS.substring(3,5);
-            String w3 = DMS.substring(5,7);
-            
-            result -= Integer.parseInt(w1)*3600;
-            result -= (Integer.parseInt(w2) * 60);
-            result -= Integer.parseInt(w3);
-        }
-
-        return result;
-
-    }
+	/**
+	 * Sets whether our db file stays open between commands, as it does by default. Turning it off
+	 * only takes effect before the file is first opened, and a reopened file always stays open.
+	 * 
+	 * @param persistentDbFile: false to open and close the file in every command.
+	 */
+	public void setPersistentDbFile(boolean persistentDbFile) {
+		this.persistentDbFile = persistentDbFile;
+	}
+	
+	/**
+	 * Sets the number of threads indexing each import, one imports serially.
+	 * The indices and db file come out the same whatever the number.
+	 * 
+	 * @param importThreads: the number of threads.
+	 */
+	public void setImportThreads(int importThreads) {
+		if (importThreads < 1) {
+			throw new IllegalArgumentException("An import needs at least one thread.");
+		}
+		
+		this.importThreads = importThreads;
+	}
+	
+	/**
+	 * Inserts a name entry into the hash table, keyed by feature name and state abbreviation.
+	 * A new entry's state is interned in our column store's state dictionary, so the table holds
+	 * one copy of each state rather than one per name.
+	 * 
+	 * @param entry: the entry being inserted, with the offsets of each record of that name.
+	 * @return: the number of offsets added to the table.
+	 */
+	private int tableInsert(nameEntry entry) {
+		nameEntry target = table.findOrInsert(entry);
+		
+		// If the name was already in the table, add the entry's offsets to it.
+		if (target != entry) {
+			int before = target.locations().size();
+			target.locations().addAll(entry.locations());
+			
+			return target.locations().size() - before;
+		}
+		
+		entry.internState(columns.states());
+		
+		return entry.locations().size();
+	}
 	
     /**
      * Inserts a feature into our world. Entries are stored with their coordinates and file offsets
      * of matching records from our db file.
-     * @param values: is our record where we'll access relevant DMS info.
-     * @param offset: the offset at which the record occurs.
+     * @param loc: the feature's location, holding its offset.
      * @return: returns true after successfully inserting.
      */
-	private boolean treeInsert(String[] values, long offset) {
-		Point loc = new Point(DMSToInt(values[8]), DMSToInt(values[7]));
-		loc.addOffset(offset);
-		
-		Point locInWorld = world.find(loc);
+	private boolean treeInsert(Point loc) {
+		Point locInWorld = world.findOrInsert(loc);
 		
-		// If the location in the tree is empty, we can just insert.
+		// Reject features outside of our world.
 		if (locInWorld == null) {
-			return world.insert(loc);
-		} 
+			return false;
+		}
+		
+		// If the location was already in the tree, we'll add to its offset list as they are still different features.
+		if (locInWorld != loc) {
+			locInWorld.getOffsets().addAll(loc.getOffsets());
+		}
 		
-		// If not, we'll add it to an offset list as they are still different features.
-		locInWorld.addOffset(offset);
 		return true;
 	}
 	
+	/**
+	 * Creates a location for a feature, holding just the feature's own offset.
+	 * 
+	 * @param fields: is our record where we'll access relevant DMS info.
+	 * @param offset: the offset at which the record occurs.
+	 * @return: the new location.
+	 */
+	private Point newLocation(FieldTokenizer fields, long offset) {
+		Point loc = new Point(
+				CoordinateParser.toSeconds(fields.record(), fields.start(8), fields.end(8)),
+				CoordinateParser.toSeconds(fields.record(), fields.start(7), fields.end(7)));
+		loc.addOffset(offset);
+		
+		return loc;
+	}
+	
+	/**
+	 * Builds the partial index of a batch of records, on one of the import's worker threads.
+	 * 
+	 * @param lines: the batch's records.
+	 * @param offset: the db file offset of the first record.
+	 * @param sortRun: whether to sort the batch's locations into a run for bulk loading our world.
+	 * @return: the batch's names and locations.
+	 */
+	private PartialIndex indexBatch(List<String> lines, long offset, boolean sortRun) {
+		PartialIndex partial = new PartialIndex(lines.size());
+		FieldTokenizer fields = new FieldTokenizer();
+		String state = null;
+		
+		for (String line : lines) {
+			String record = line.trim();
+			fields.reset(record);
+			partial.nameLengths += fields.length(1);
+			
+			// Our key is the feature name and state abbreviation. Records come grouped by state,
+			// so entries mostly share the last one's state instead of copying their own.
+			if (state == null || !fields.fieldEquals(3, state)) {
+				state = fields.field(3);
+			}
+			
+			nameEntry entry = new nameEntry(fields.field(1), state, offset);
+			nameEntry existing = partial.names.putIfAbsent(entry, entry);
+			
+			if (existing != null) {
+				existing.addLocation(offset);
+			}
+			
+			partial.locations.add(newLocation(fields, offset));
+			partial.rows.add(offset, fields);
+			offset += (line.length() + 1);
+		}
+		
+		if (sortRun) {
+			partial.run = world.sortedRun(partial.locations);
+		}
+		
+		return partial;
+	}
+	
 	/**
 	 * Import each record from a given data file.
+	 * Records stream in from an ImportPipeline, whose worker threads parse them and build a partial
+	 * index for each batch. Batches arrive in file order, each one is appended to our db file and
+	 * its partial index merged into our table and world.
+	 * If our world is still empty, its locations are bulk loaded in one pass at the end. With more than
+	 * one worker, the workers also sort each batch's locations into a run, so the bulk load only has to
+	 * merge the runs. Otherwise locations are inserted one at a time, in file order, so every bucket
+	 * lists its locations in the order they were imported.
 	 * @param file: file to be importing records from.
-	 * @return an array list with relevant information from importing.
+	 * @return the features indexed by name, locations added, average name length and records imported per second.
 	 * @throws IOException: throws exception if file is not found.
 	 */
 	public long[] importRecords(String file) throws IOException {
-		int worldSize = 0, tableSize = 0, nameLengths = 0;
-		
-		// Create a new RAF to access our GIS record data and open our database file.
-		try (
-				RandomAccessFile dataFile = new RandomAccessFile(file, "r");
-				DbFileModel newDbFile = DbFileModel.getInstance(dbFileName).open();
-		) {
-			String line = dataFile.readLine();
-			List<String> records = new ArrayList<>();
-			long offset = newDbFile.length();
+		long startTime = System.nanoTime();
+		
+		// Open our database file and start streaming our GIS record data.
+		try (DbFileModel newDbFile = openDbFile()) {
+			long oldLength = newDbFile.length();
+			long oldColumnLength = columns.fileLength();
+			long[] counts = indexRecords(new FileInputStream(file), file, oldLength, newDbFile);
+			
+			// The pages that used to end the db file and the column file have just grown.
+			bufferPool.invalidate(oldLength);
+			columnPool.invalidate(oldColumnLength);
+			
+			long recordCount = counts[3];
+			long elapsed = Math.max(System.nanoTime() - startTime, 1);
+			
+			// Return an array with relevant information for our log file.
+			return new long[] {counts[0], counts[1], recordCount == 0 ? 0 : counts[2] / recordCount,
+					recordCount * 1_000_000_000L / elapsed};
+		}
+	}
+	
+	/**
+	 * Reopens our db file as it is, keeping every record earlier runs imported, and rebuilds our
+	 * table, world and column store from those records. The db file is indexed the way a data file
+	 * is imported, but nothing is appended, so every record keeps its offset.
+	 * Our db file then stays open between commands, and later imports are appended after its records.
+	 * @return the features indexed by name, locations indexed, records indexed and imports in the db file's manifest.
+	 * @throws IOException: throws exception if the db file is not found or isn't a valid db file.
+	 */
+	public long[] reopen() throws IOException {
+		try (DbFileModel dbFile = reopenDbFile()) {
+			table = new openHashTable<nameEntry>(1024, 0.7);
+			world = new prQuadTree<>(world.xMin, world.xMax, world.yMin, world.yMax, WORLD_BUCKET_SIZE, WORLD_MAX_DEPTH);
+			replaceColumns(new ColumnStore(ColumnStore.columnsFile(dbFileName), new StringDictionary()));
+			
+			long[] counts = indexRecords(dbFile.newInputStream(), dbFileName, DbFileModel.HEADER.length() + 1, null);
+			
+			return new long[] {counts[0], counts[1], counts[3], dbFile.getManifest().size()};
+		}
+	}
+	
+	/**
+	 * Streams the records of a file into our table and world, appending them to our db file if asked to.
+	 * @param records: the file's records, its first line holds the column names. Closed once read.
+	 * @param file: the file's name, for our db file's manifest.
+	 * @param offset: the db file offset of the file's first record.
+	 * @param appendTo: our db file if the records are to be appended to it, null if they're already in it.
+	 * @return the features indexed by name, locations added, total name length and records read.
+	 * @throws IOException: throws exception if file is not found.
+	 */
+	private long[] indexRecords(InputStream records, String file, long offset, DbFileModel appendTo) throws IOException {
+		long worldSize = 0, tableSize = 0, nameLengths = 0, recordCount = 0;
+		
+		boolean coldStart = world.isEmpty();
+		List<Point> locations = new ArrayList<>();
+		
+		// With more than one worker, sorting for the bulk load is spread over them.
+		boolean sortRuns = coldStart && importThreads > 1;
+		List<Point> runs = new ArrayList<>();
+		
+		try (ImportPipeline<PartialIndex> pipeline = new ImportPipeline<>(records, offset, importThreads,
+				(lines, first) -> indexBatch(lines, first, sortRuns))) {
+			if (appendTo != null) {
+				appendTo.beginAppend(file);
+			}
+			
+			// Go through each batch of the file and populate our table and world.
+			ImportPipeline.Batch<PartialIndex> batch;
 			
-			// Go through each line in the data file and populate our table and world.
-			while ((line = dataFile.readLine()) != null) {
-				String[] values = line.trim().split("\\|");
-				records.add(line);
-				nameLengths += values[1].length();
+			while ((batch = pipeline.nextBatch()) != null) {
+				if (appendTo != null) {
+					for (String line : batch.lines) {
+						appendTo.appendRecord(line);
+					}
+				}
 				
-				if(tableInsert(values, offset)) {
-					tableSize++;
+				for (nameEntry entry : batch.partial.names.values()) {
+					tableSize += tableInsert(entry);
 				}
 				
-				if (treeInsert(values, offset)) {
-					worldSize++;
+				if (coldStart) {
+					locations.addAll(batch.partial.locations);
+					
+					if (sortRuns) {
+						runs.addAll(batch.partial.run);
+					}
+				} else {
+					for (Point loc : batch.partial.locations) {
+						if (treeInsert(loc)) {
+							worldSize++;
+						}
+					}
 				}
 				
-				offset += (line.length() + 1);
+				columns.append(batch.partial.rows);
+				nameLengths += batch.partial.nameLengths;
+				recordCount += batch.lines.size();
 			}
 			
-			newDbFile.importRecords(records);
-			
-			// Return an array list with relevant information for our log file.
-			return new long[] {tableSize, worldSize, nameLengths / records.size()};
+			if (appendTo != null) {
+				appendTo.endAppend();
+			}
+		}
+		
+		// Features sharing a location end up in one offset list. If the workers already sorted each
+		// batch's locations, the bulk load only merges their runs.
+		if (coldStart) {
+			BiConsumer<Point, Point> merger = (loc, duplicate) -> loc.getOffsets().addAll(duplicate.getOffsets());
+			worldSize = sortRuns ? world.bulkLoad(locations, runs, merger) : world.bulkLoad(locations, merger);
+		}
+		
+		return new long[] {tableSize, worldSize, nameLengths, recordCount};
+	}
+	
+	/**
+	 * Closes our db file for good, once we're done with it, and our column store's file. A later
+	 * command starts the db file over, or reopens it, as if it were the first.
+	 * @throws IOException: throws exception if a file can't be closed.
+	 */
+	public synchronized void shutdown() throws IOException {
+		try {
+			columns.close();
+		} finally {
+			if (dbFile != null) {
+				try {
+					dbFile.shutdown();
+				} finally {
+					dbFile = null;
+				}
+			}
 		}
 	}
 	
@@ -177,17 +469,64 @@ public class DbController {
 	 * @return: the boundaries of our world in a list format.
 	 */
 	public long[] getWorldBoundaries(String wLongitude, String eLongitude, String sLatitude, String nLatitude) {
-		long yMax = DMSToInt(nLatitude);
-		long yMin = DMSToInt(sLatitude);
+		long yMax = CoordinateParser.toSeconds(nLatitude);
+		long yMin = CoordinateParser.toSeconds(sLatitude);
 		
-		long xMax = DMSToInt(eLongitude);
-		long xMin = DMSToInt(wLongitude);
+		long xMax = CoordinateParser.toSeconds(eLongitude);
+		long xMin = CoordinateParser.toSeconds(wLongitude);
 		
-		world = new prQuadTree<>(xMin, xMax, yMin, yMax);
+		world = new prQuadTree<>(xMin, xMax, yMin, yMax, WORLD_BUCKET_SIZE, WORLD_MAX_DEPTH);
 		
 		return new long[] {yMax, xMin, xMax, yMin};
 	}
 	
+	/**
+	 * Saves a snapshot of our table and world, along with the length of the db file they index.
+	 * 
+	 * @param file: the snapshot file, replaced if it exists.
+	 * @return: the features indexed by name, locations and records in the snapshot, and its size in bytes.
+	 * @throws IOException: throws exception if either file can't be accessed.
+	 */
+	public long[] saveIndex(String file) throws IOException {
+		try (DbFileModel dbFile = openDbFile()) {
+			IndexSnapshot snapshot = new IndexSnapshot(table, world, columns, dbFile.length());
+			snapshot.save(file);
+			
+			return snapshot.summary();
+		}
+	}
+	
+	/**
+	 * Replaces our table, world and column store with a saved snapshot, reopening our db file as it
+	 * is instead of starting it over. The db file and column file must be just as long as when the
+	 * snapshot was saved, so the offsets in the snapshot still point at the records and rows they
+	 * were taken from.
+	 * Records imported afterwards are appended to the file and indexed as usual.
+	 * 
+	 * @param file: the snapshot file.
+	 * @return: the features indexed by name, locations and records in the snapshot, and its size in bytes.
+	 * @throws IOException: throws exception if a file isn't found, the snapshot is corrupt or doesn't match our db file.
+	 */
+	public long[] loadIndex(String file) throws IOException {
+		IndexSnapshot snapshot = IndexSnapshot.load(file, ColumnStore.columnsFile(dbFileName));
+		
+		try (DbFileModel dbFile = reopenDbFile()) {
+			if (dbFile.length() != snapshot.dbLength) {
+				throw new IOException("Index snapshot " + file + " was taken of " + snapshot.dbLength + " bytes of "
+						+ dbFileName + ", which now holds " + dbFile.length() + ".");
+			}
+		} catch (IOException e) {
+			snapshot.columns.close();
+			throw e;
+		}
+		
+		table = snapshot.table;
+		world = snapshot.world;
+		replaceColumns(snapshot.columns);
+		
+		return snapshot.summary();
+	}
+	
 	/**
 	 * Writes the contents of the specified data structure into our log file.
 	 * 
@@ -202,30 +541,66 @@ public class DbController {
 				break;
 			case "hash":
 				table.display(fw);
+				displayKeys(fw);
 				break;
 			case "pool":
 				bufferPool.display(fw);
+				fw.write("\n\nColumn file pages:\n");
+				columnPool.display(fw);
+				fw.write("\n");
+				columns.displayDictionaries(fw);
+				break;
+			case "columns":
+				columns.display(fw);
 				break;
 		}
 	}
 	
 	/**
-	 * Fetches a record in the db file using its offset.
+	 * Writes how many bytes our table's keys hold, and how many sharing each state's String saves
+	 * over every key holding its own "|state" suffix.
+	 * 
+	 * @param fw: open to write to our log.
+	 * @throws IOException: throws an error if the file isn't found.
+	 */
+	private void displayKeys(FileWriter fw) throws IOException {
+		long[] bytes = new long[2];
+		
+		table.forEach(entry -> {
+			bytes[0] += entry.name().length();
+			bytes[1] += entry.state() == null ? 0 : entry.state().length() + 1;
+		});
+		
+		fw.write("Name bytes: " + bytes[0] + "\n");
+		fw.write("Interned states: " + columns.states().size() + ", saving " + (bytes[1] - columns.states().bytes()) + " bytes\n");
+	}
+	
+	/**
+	 * Opens our db file if a projection needs whole records, the rest of its columns come out of our column store.
 	 * 
-	 * @param dbFile: the database file we're searching in.
+	 * @param projection: the columns a query asked for.
+	 * @return: our db file, or null if it isn't needed.
+	 * @throws IOException
+	 */
+	private DbFileModel openFor(Set<Feature.Column> projection) throws IOException {
+		return projection.contains(Feature.Column.RECORD) ? openDbFile() : null;
+	}
+	
+	/**
+	 * Fetches a feature using its record's offset, decoding just the columns asked for.
+	 * The whole record, if asked for, comes by way of the cached db file page holding it, and the
+	 * rest from the cached column file page holding its row.
+	 * 
+	 * @param dbFile: the database file we're searching in, null unless the projection holds RECORD.
 	 * @param offset: the offset location of the record we're looking for.
-	 * @return: returns the target record.
+	 * @param projection: the columns to fetch.
+	 * @return: returns the target feature.
 	 * @throws IOException
 	 */
-	private String getRecord(DbFileModel dbFile, long offset) throws IOException {
-		String record = bufferPool.getElem(offset);
-		
-		if (record == null) {
-			record = dbFile.seekRecord(offset);
-			bufferPool.insertElem(record, offset);
-		}
+	private Feature getFeature(DbFileModel dbFile, long offset, Set<Feature.Column> projection) throws IOException {
+		String record = dbFile == null ? null : bufferPool.getRecord(dbFile, offset);
 		
-		return record;
+		return columns.project(columnPool, offset, projection, record);
 	}
 	
 	/**
@@ -233,23 +608,22 @@ public class DbController {
 	 * 
 	 * @param name: name for our target record.
 	 * @param state: state for our target record.
+	 * @param projection: the columns to fetch.
 	 * @return: return the fetched record(s).
 	 * @throws IOException
 	 */
-	public Map<Long, String> whatIs(String name, String state) throws IOException {
-		Map<Long, String> result = new TreeMap<>();
+	public Map<Long, Feature> whatIs(String name, String state, Set<Feature.Column> projection) throws IOException {
+		Map<Long, Feature> result = new TreeMap<>();
 		
-		String key = name + "|" + state;
-		nameEntry targetEntry = table.find(new nameEntry(key, 0L));
+		nameEntry targetEntry = table.find(new nameEntry(name, state, 0L));
 		
 		// If we've found our target record, we'll go through all of its locations and fetch them.
 		if (targetEntry != null) {
-			try (@SuppressWarnings("resource") DbFileModel newDbFile = DbFileModel.getInstance(dbFileName).open()) {
+			try (@SuppressWarnings("resource") DbFileModel newDbFile = openFor(projection)) {
 				for (int i = 0; i < targetEntry.locations().size(); i++) {
 					long offset = targetEntry.locations().get(i);
-					String record = getRecord(newDbFile, offset);
 					
-					result.put(offset, record);
+					result.put(offset, getFeature(newDbFile, offset, projection));
 				}
 			}
 		}
@@ -262,23 +636,83 @@ public class DbController {
 	 * 
 	 * @param latDMS: Latitude DMS coordinate.
 	 * @param longDMS: Longitude DMS coordinate.
+	 * @param projection: the columns to fetch.
 	 * @return: return the fetched record(s).
 	 * @throws IOException
 	 */
-	public Map<Long, String> whatIsAt(String latDMS, String longDMS) throws IOException {
-		Map<Long, String> result = new TreeMap<>();
+	public Map<Long, Feature> whatIsAt(String latDMS, String longDMS, Set<Feature.Column> projection) throws IOException {
+		Map<Long, Feature> result = new TreeMap<>();
 		
-		Point loc = new Point(DMSToInt(longDMS), DMSToInt(latDMS));
+		Point loc = new Point(CoordinateParser.toSeconds(longDMS), CoordinateParser.toSeconds(latDMS));
 		Point locInWorld = world.find(loc);
 		
 		// If we've found our location, we'll go through all offsets for records that have a specific set of coordinates and fetch them.
 		if (locInWorld != null) {
-			try (@SuppressWarnings("resource") DbFileModel newDbFile = DbFileModel.getInstance(dbFileName).open()) {
+			try (@SuppressWarnings("resource") DbFileModel newDbFile = openFor(projection)) {
 				for (int i = 0; i < locInWorld.getOffsets().size(); i++) {
 					long offset = locInWorld.getOffsets().get(i);
-					String record = getRecord(newDbFile, offset);
 					
-					result.put(offset, record);
+					result.put(offset, getFeature(newDbFile, offset, projection));
+				}
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Get the k records nearest to a given set of coordinates, by great-circle distance.
+	 * 
+	 * @param latDMS: Latitude DMS coordinate.
+	 * @param longDMS: Longitude DMS coordinate.
+	 * @param k: the number of records to fetch.
+	 * @param projection: the columns to fetch.
+	 * @return: return the fetched record(s), nearest first.
+	 * @throws IOException
+	 */
+	public Map<Long, Feature> whatIsNear(String latDMS, String longDMS, int k, Set<Feature.Column> projection) throws IOException {
+		// Each location holds at least one record, so k locations are always enough.
+		ArrayList<Point> locations = world.findNearest(CoordinateParser.toSeconds(longDMS), CoordinateParser.toSeconds(latDMS), k);
+		
+		return fetchLocations(locations, k, projection);
+	}
+	
+	/**
+	 * Get every record within a given distance of a set of coordinates, by great-circle distance.
+	 * 
+	 * @param latDMS: Latitude DMS coordinate.
+	 * @param longDMS: Longitude DMS coordinate.
+	 * @param radius: the distance in meters.
+	 * @param projection: the columns to fetch.
+	 * @return: return the fetched record(s), nearest first.
+	 * @throws IOException
+	 */
+	public Map<Long, Feature> whatIsWithin(String latDMS, String longDMS, double radius, Set<Feature.Column> projection) throws IOException {
+		ArrayList<Point> locations = world.findWithin(CoordinateParser.toSeconds(longDMS), CoordinateParser.toSeconds(latDMS), radius);
+		
+		return fetchLocations(locations, Integer.MAX_VALUE, projection);
+	}
+	
+	/**
+	 * Fetches the records at each of the given locations, keeping the order of the locations.
+	 * 
+	 * @param locations: the locations whose records we want.
+	 * @param limit: stop after this many records.
+	 * @param projection: the columns to fetch.
+	 * @return: the fetched records.
+	 * @throws IOException
+	 */
+	private Map<Long, Feature> fetchLocations(List<Point> locations, int limit, Set<Feature.Column> projection) throws IOException {
+		Map<Long, Feature> result = new LinkedHashMap<>();
+		
+		if (!locations.isEmpty()) {
+			try (DbFileModel newDbFile = openFor(projection)) {
+				for (Point loc : locations) {
+					for (int i = 0; i < loc.getOffsets().size() && result.size() < limit; i++) {
+						long offset = loc.getOffsets().get(i);
+						
+						result.put(offset, getFeature(newDbFile, offset, projection));
+					}
 				}
 			}
 		}
@@ -293,31 +727,58 @@ public class DbController {
 	 * @param centerLong: Longitude DMS coordinate of the region's center.
 	 * @param halfY: half of the height of the region.
 	 * @param halfX: half of the width of the region.
+	 * @param projection: the columns to fetch.
 	 * @return: return the fetched record(s).
 	 * @throws IOException
 	 */
-	public Map<Long, String> whatIsIn(String centerLat, String centerLong, long halfY, long halfX) throws IOException {
-		Map<Long, String> result = new TreeMap<>();
+	public Map<Long, Feature> whatIsIn(String centerLat, String centerLong, long halfY, long halfX, Set<Feature.Column> projection) throws IOException {
+		Map<Long, Feature> result = new TreeMap<>();
 		
-		long centerX = DMSToInt(centerLong);
-		long centerY = DMSToInt(centerLat);
+		whatIsIn(centerLat, centerLong, halfY, halfX, Long.MAX_VALUE, projection, result::put);
 		
-		ArrayList<Point> locations = world.find(centerX - halfX, centerX + halfX, centerY - halfY, centerY + halfY);
+		return result;
+	}
+	
+	/**
+	 * Stream every record from our database file whose coordinates are within a specific region.
+	 * Locations are pulled from our world one at a time and each record is handed over as soon as
+	 * it's fetched, so nothing is collected up front.
+	 * 
+	 * @param centerLat: Latitude DMS coordinate of the region's center.
+	 * @param centerLong: Longitude DMS coordinate of the region's center.
+	 * @param halfY: half of the height of the region.
+	 * @param halfX: half of the width of the region.
+	 * @param limit: stop after this many records.
+	 * @param projection: the columns to fetch.
+	 * @param handler: receives each fetched record.
+	 * @return: the number of records handed to handler.
+	 * @throws IOException
+	 */
+	public long whatIsIn(String centerLat, String centerLong, long halfY, long halfX, long limit, Set<Feature.Column> projection,
+			RecordHandler handler) throws IOException {
+		long centerX = CoordinateParser.toSeconds(centerLong);
+		long centerY = CoordinateParser.toSeconds(centerLat);
+		long count = 0;
+		
+		Iterator<Point> locations = world.findIterator(centerX - halfX, centerX + halfX, centerY - halfY, centerY + halfY);
 		
 		// Go through each location and then get all the offsets within the region.
-		if (locations != null) {
-			try (DbFileModel newDbFile = DbFileModel.getInstance(dbFileName).open()) {
-				for (Point loc : locations) {
-					for (Long offset : loc.getOffsets()) {
-						String record = getRecord(newDbFile, offset);
+		if (locations.hasNext() && limit > 0) {
+			try (DbFileModel newDbFile = openFor(projection)) {
+				while (count < limit && locations.hasNext()) {
+					Point loc = locations.next();
+					
+					for (int i = 0; i < loc.getOffsets().size() && count < limit; i++) {
+						long offset = loc.getOffsets().get(i);
 						
-						result.put(offset, record);
+						handler.accept(offset, getFeature(newDbFile, offset, projection));
+						count++;
 					}
 				}
 			}
 		}
 		
-		return result;
+		return count;
 	}
 
 }
@@ -1,102 +1,785 @@
 package com.GIS.databaseModel;
 
+import java.io.BufferedReader;
 import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * A class to model our database file.
  * Should make importing and accessing it a little more intuitive.
+ * Every import is recorded in a manifest next to the db file, so a later run can reopen the
+ * file as it is and append to it, and the offsets handed out by earlier runs stay valid. A file
+ * that's never imported into gets no manifest.
+ * The file is either stored as plain text or compressed block by block, see StorageFormat.
  * @author Mansour Najah
  */
-public class DbFileModel implements Closeable {
+public class DbFileModel implements Closeable, PageCache.Source {
 	
-	private static DbFileModel dbInstance;
+	/**
+	 * How records and blocks are read from the database file.
+	 * RANDOM_ACCESS seeks and reads through the file, MAPPED copies them out of a memory mapping.
+	 */
+	public enum ReadMode {
+		RANDOM_ACCESS, MAPPED
+	}
+	
+	/**
+	 * When appended records are forced to disk. NONE leaves it to the operating system,
+	 * EACH_IMPORT forces them once an import is written, EACH_FLUSH after every buffer written.
+	 */
+	public enum SyncPolicy {
+		NONE, EACH_IMPORT, EACH_FLUSH
+	}
+	
+	/**
+	 * How the db file is stored. TEXT keeps every record as a line of the file. DEFLATE compresses
+	 * the same lines into blocks, see BlockStore, trading some CPU for a smaller file and less I/O.
+	 * Offsets count bytes of the lines either way, so nothing above this class can tell the difference.
+	 */
+	public enum StorageFormat {
+		TEXT, DEFLATE;
+		
+		/**
+		 * Returns the storage format of a given name, text or deflate.
+		 * 
+		 * @param name: the name, in any case.
+		 * @return: the storage format.
+		 */
+		public static StorageFormat forName(String name) {
+			switch (name.toLowerCase()) {
+				case "text":
+					return TEXT;
+				case "deflate":
+					return DEFLATE;
+				default:
+					throw new IllegalArgumentException("Unknown storage format: " + name);
+			}
+		}
+	}
+	
+	/**
+	 * One import as the manifest records it: the range of bytes its records were appended to,
+	 * and the data file they came from.
+	 */
+	public static class ManifestEntry {
+		public final long start, end;
+		public final String source;
+		
+		ManifestEntry(long start, long end, String source) {
+			this.start = start;
+			this.end = end;
+			this.source = source;
+		}
+		
+		/**
+		 * Formats the entry as a manifest line, tab separated.
+		 */
+		@Override
+		public String toString() {
+			return start + "\t" + end + "\t" + source;
+		}
+	}
+	
+	// The first line of every db file, a label for each data member.
+	static final String HEADER = "FEATURE_ID|FEATURE_NAME|FEATURE_CLASS|STATE_ALPHA|STATE_NUMERIC|COUNTY_NAME|"
+			+ "COUNTY_NUMERIC|PRIMARY_LAT_DMS|PRIM_LONG_DMS|PRIM_LAT_DEC|PRIM_LONG_DEC|SOURCE_LAT_DMS|"
+			+ "SOURCE_LONG_DMS|SOURCE_LAT_DEC|SOURCE_LONG_DEC|ELEV_IN_M|ELEV_IN_FT|MAP_NAME|DATE_CREATED|DATE_EDITED";
+	
+	// Size of the buffer appended records are gathered in before being written.
+	private static final int WRITE_BUFFER_SIZE = 1 << 20;
+	
+	// Size of each mapped chunk, a single mapping can't cover more than 2 GB.
+	private static final long CHUNK_SIZE = 1L << 30;
+	
+	// Most bytes of records compressed together in DEFLATE format.
+	public static final int BLOCK_SIZE = 16 * 1024;
 	
 	// Attributes for our model.
 	private RandomAccessFile rafController;
 	private String filePath;
+	private ReadMode readMode = ReadMode.MAPPED;
+	private SyncPolicy syncPolicy = SyncPolicy.NONE;
+	private StorageFormat storageFormat;
 	
-	public static DbFileModel getInstance(String file) throws IOException {
-		if (dbInstance == null) {
-			dbInstance = new DbFileModel(file);
-		}
-		
-		return dbInstance;
+	// Holds the file's blocks in DEFLATE format, null in TEXT format.
+	private BlockStore blocks;
+	
+	// Reused by every import, allocated on the first one.
+	private ByteBuffer writeBuffer;
+	
+	// A persistent model keeps its file open from the first open() until shutdown().
+	private boolean persistent;
+	
+	// Every import so far, and where and from what the one in progress started.
+	private final List<ManifestEntry> manifest = new ArrayList<>();
+	private long appendStart;
+	private String appendSource;
+	
+	// The mapped chunks stay valid after the file is closed, so they're kept between queries.
+	// Set when the file has grown past the mapping.
+	private MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+	private long mappedLength;
+	private boolean grown = true;
+	
+	/**
+	 * Returns the path of the manifest kept for a db file.
+	 * 
+	 * @param file: path to the database file.
+	 * @return: path to its manifest.
+	 */
+	public static String manifestFile(String file) {
+		return file + ".manifest";
 	}
 	
 	/**
-	 * Creates a new DbFileModel object and writes a label for each data member.
+	 * Creates a new DbFileModel object. Unless it's reopening the file, writes a label for each
+	 * data member and drops any manifest left by an earlier run, the first import starts a new one.
 	 * 
 	 * @param filePath: path to the database file.
-	 * @throws IOException: throw exception if file not found.
+	 * @param reopen: true to reopen the file as it is, false to start it over with just the header.
+	 * @param storageFormat: the format a new file is stored in, a reopened file keeps the one it was written in.
+	 * @param persistent: true to keep the file open from the first open() until shutdown(), instead of
+	 *                    closing it after every command. A reopened file is always persistent.
+	 * @throws IOException: throw exception if the file can't be written, or is to be reopened but isn't a valid db file.
 	 */
-	private DbFileModel(String filePath) throws IOException {
+	public DbFileModel(String filePath, boolean reopen, StorageFormat storageFormat, boolean persistent)
+			throws IOException {
 		this.filePath = filePath;
+		this.persistent = persistent;
+		
+		if (reopen) {
+			reopen();
+			return;
+		}
+		
+		this.storageFormat = storageFormat;
+		
+		if (storageFormat == StorageFormat.DEFLATE) {
+			try (RandomAccessFile raf = new RandomAccessFile(filePath, "rw")) {
+				blocks = BlockStore.create(raf.getChannel(), BLOCK_SIZE);
+				blocks.append(raf.getChannel(), HEADER);
+				blocks.flush(raf.getChannel());
+			}
+		} else {
+			try (FileWriter fw = new FileWriter(filePath, false)) {
+				fw.write(HEADER + "\n");
+			}
+		}
+		
+		Files.deleteIfExists(Paths.get(manifestFile(filePath)));
+	}
+	
+	/**
+	 * Reopens an existing db file in persistent mode. Its header is checked, and its manifest read
+	 * back. Anything past the last complete import in the manifest was left by an import that never
+	 * finished, so it's cut off and appending picks up where the last complete import ended.
+	 * A db file without a manifest is taken as it is, as a single import.
+	 * The file's storage format is told by how it starts, compressed files begin with BlockStore's magic number.
+	 * 
+	 * @throws IOException: throw exception if the file isn't found or isn't a valid db file.
+	 */
+	private void reopen() throws IOException {
+		if (!new File(filePath).isFile()) {
+			throw new FileNotFoundException("No database file to reopen: " + filePath);
+		}
+		
+		persistent = true;
+		byte[] header = (HEADER + "\n").getBytes(StandardCharsets.ISO_8859_1);
 		
-		try (FileWriter fw = new FileWriter(filePath, false)) {
-			fw.write("FEATURE_ID|FEATURE_NAME|FEATURE_CLASS|STATE_ALPHA|STATE_NUMERIC|COUNTY_NAME|"
-					+ "COUNTY_NUMERIC|PRIMARY_LAT_DMS|PRIM_LONG_DMS|PRIM_LAT_DEC|PRIM_LONG_DEC|SOURCE_LAT_DMS|"
-					+ "SOURCE_LONG_DMS|SOURCE_LAT_DEC|SOURCE_LONG_DEC|ELEV_IN_M|ELEV_IN_FT|MAP_NAME|DATE_CREATED|DATE_EDITED\n");
+		try (RandomAccessFile raf = new RandomAccessFile(filePath, "rw")) {
+			FileChannel channel = raf.getChannel();
+			byte[] found = new byte[header.length];
+			long fileLength;
+			int read;
+			
+			if (BlockStore.isBlockFile(channel)) {
+				storageFormat = StorageFormat.DEFLATE;
+				blocks = BlockStore.open(channel);
+				fileLength = blocks.length();
+				read = blocks.read(channel, 0, found);
+			} else {
+				storageFormat = StorageFormat.TEXT;
+				fileLength = raf.length();
+				read = raf.read(found);
+			}
+			
+			if (fileLength < header.length || read != header.length || !Arrays.equals(found, header)) {
+				throw new IOException(filePath + " is not a GIS database file, its header doesn't match.");
+			}
+			
+			long end = readManifest(header.length, fileLength);
+			
+			if (fileLength > end) {
+				if (blocks != null) {
+					blocks.truncate(channel, end);
+				} else {
+					raf.setLength(end);
+				}
+			}
 		}
 	}
 	
 	/**
-	 * Opens a RandomAccessFile on our db file path.
+	 * Reads our manifest back. Each import must start where the one before it ended, the first one
+	 * right after the header. A last line that's cut short, or that runs past the end of the db file,
+	 * belongs to an import that was cut short when a run stopped. It's dropped along with its records.
+	 * 
+	 * @param headerLength: the length of the header line.
+	 * @param fileLength: the length of the db file.
+	 * @return: where the last complete import ended.
+	 * @throws IOException: throw exception if the manifest doesn't fit the db file.
+	 */
+	private long readManifest(long headerLength, long fileLength) throws IOException {
+		File file = new File(manifestFile(filePath));
+		
+		if (!file.isFile()) {
+			if (fileLength > headerLength) {
+				manifest.add(new ManifestEntry(headerLength, fileLength, "-"));
+			}
+			
+			writeManifest();
+			return fileLength;
+		}
+		
+		List<String> lines = new ArrayList<>();
+		
+		try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.ISO_8859_1))) {
+			String line;
+			
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		}
+		
+		long end = headerLength;
+		boolean torn = false;
+		
+		for (int i = 0; i < lines.size(); i++) {
+			String[] values = lines.get(i).split("\t", 3);
+			ManifestEntry entry = null;
+			
+			try {
+				if (values.length == 3) {
+					entry = new ManifestEntry(Long.parseLong(values[0]), Long.parseLong(values[1]), values[2]);
+				}
+			} catch (NumberFormatException e) {
+				entry = null;
+			}
+			
+			boolean valid = entry != null && entry.start == end && entry.end >= entry.start;
+			
+			if (valid && entry.end <= fileLength) {
+				manifest.add(entry);
+				end = entry.end;
+				continue;
+			}
+			
+			// The last import may have been recorded before all of its records reached the disk.
+			if (i == lines.size() - 1 && (entry == null || valid)) {
+				torn = true;
+				break;
+			}
+			
+			throw new IOException("Manifest line " + (i + 1) + " of " + filePath + " doesn't match the db file.");
+		}
+		
+		if (torn) {
+			writeManifest();
+		}
+		
+		return end;
+	}
+	
+	/**
+	 * Writes our whole manifest out again.
+	 * 
+	 * @throws IOException: throw exception if the manifest can't be written.
+	 */
+	private void writeManifest() throws IOException {
+		try (FileWriter fw = new FileWriter(manifestFile(filePath), StandardCharsets.ISO_8859_1, false)) {
+			for (ManifestEntry entry : manifest) {
+				fw.write(entry + "\n");
+			}
+		}
+	}
+	
+	/**
+	 * Adds an import to our manifest, creating the manifest for the first one, and forces it to disk
+	 * unless our sync policy is NONE.
+	 * Called once the import's records are written, so the manifest never covers records that aren't there.
+	 * 
+	 * @param entry: the import.
+	 * @throws IOException: throw exception if the manifest can't be written.
+	 */
+	private void recordImport(ManifestEntry entry) throws IOException {
+		try (FileOutputStream out = new FileOutputStream(manifestFile(filePath), true)) {
+			out.write((entry + "\n").getBytes(StandardCharsets.ISO_8859_1));
+			
+			if (syncPolicy != SyncPolicy.NONE) {
+				out.getFD().sync();
+			}
+		}
+		
+		manifest.add(entry);
+	}
+	
+	/**
+	 * Returns every import recorded in our manifest, oldest first.
+	 */
+	public synchronized List<ManifestEntry> getManifest() {
+		return Collections.unmodifiableList(new ArrayList<>(manifest));
+	}
+	
+	/**
+	 * Returns true iff the file stays open between commands.
+	 */
+	public synchronized boolean isPersistent() {
+		return persistent;
+	}
+	
+	/**
+	 * Keeps the file open between commands from now on, until shutdown().
+	 */
+	public synchronized void makePersistent() {
+		persistent = true;
+	}
+	
+	/**
+	 * Picks how records and blocks are read, memory mapped by default.
+	 * 
+	 * @param readMode: the new read mode.
+	 */
+	public synchronized void setReadMode(ReadMode readMode) {
+		this.readMode = readMode;
+	}
+	
+	public ReadMode getReadMode() {
+		return readMode;
+	}
+	
+	/**
+	 * Picks when appended records are forced to disk, NONE by default.
+	 * 
+	 * @param syncPolicy: the new sync policy.
+	 */
+	public synchronized void setSyncPolicy(SyncPolicy syncPolicy) {
+		this.syncPolicy = syncPolicy;
+	}
+	
+	public SyncPolicy getSyncPolicy() {
+		return syncPolicy;
+	}
+	
+	public StorageFormat getStorageFormat() {
+		return storageFormat;
+	}
+	
+	/**
+	 * Opens a RandomAccessFile on our db file path, unless it's still open.
 	 * 
 	 * @return: this object.
 	 * @throws IOException: throw exception if file not found.
 	 */
-	public DbFileModel open() throws IOException {
-		rafController = new RandomAccessFile(filePath, "rw");
+	public synchronized DbFileModel open() throws IOException {
+		if (rafController == null) {
+			rafController = new RandomAccessFile(filePath, "rw");
+		}
+		
 		return this;
 	}
 
 	/**
-	 * Closes the file as long as the RandomAccessFile returns null.
+	 * Closes the file, unless we're persistent. A persistent file stays open for the next
+	 * command, saving a reopen and a close every time, until shutdown().
 	 */
 	@Override
-	public void close() throws IOException {
-		if (rafController != null)
+	public synchronized void close() throws IOException {
+		if (!persistent) {
+			shutdown();
+		}
+	}
+	
+	/**
+	 * Closes the file for good, persistent or not. Does nothing if it isn't open.
+	 * 
+	 * @throws IOException: throw exception if the file can't be closed.
+	 */
+	public synchronized void shutdown() throws IOException {
+		if (rafController != null) {
 			rafController.close();
+			rafController = null;
+		}
 	}
 	
 	/**
-	 * Imports records from a GIS data file.
+	 * Imports records from a GIS data file, appending each one as a line.
 	 * 
 	 * @param records: records to be imported.
 	 * @throws IOException: throw exception if file not found.
 	 */
-	public void importRecords(List<String> records) throws IOException {
-		rafController.seek(rafController.length());
+	public synchronized void importRecords(List<String> records) throws IOException {
+		beginAppend("-");
+		
+		for (int i = 0; i < records.size(); i++) {
+			appendRecord(records.get(i));
+		}
+		
+		endAppend();
+	}
+	
+	/**
+	 * Starts appending records at the end of the file, so an import can write them as
+	 * they come instead of holding them all. Records are encoded into one reused buffer
+	 * and written a megabyte at a time. They're encoded as Latin-1, the way readLine
+	 * decoded them, so every record takes exactly as many bytes as it has characters and
+	 * the offsets handed out while importing line up with the file.
+	 * In DEFLATE format the records are gathered into blocks instead, which are compressed and
+	 * written as they fill up.
+	 * 
+	 * @param source: the data file the records come from, for the manifest.
+	 * @throws IOException: throw exception if file not found.
+	 */
+	public synchronized void beginAppend(String source) throws IOException {
+		appendSource = source;
+		
+		if (blocks != null) {
+			appendStart = blocks.length();
+			return;
+		}
+		
+		FileChannel channel = rafController.getChannel();
+		channel.position(channel.size());
+		appendStart = channel.position();
+		
+		if (writeBuffer == null) {
+			writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+		}
+		
+		writeBuffer.clear();
+	}
+	
+	/**
+	 * Appends a record as a line, between beginAppend(source) and endAppend().
+	 * 
+	 * @param record: the record to be appended.
+	 * @throws IOException: throw exception if file not found.
+	 */
+	public synchronized void appendRecord(String record) throws IOException {
+		FileChannel channel = rafController.getChannel();
+		
+		if (blocks != null) {
+			if (blocks.append(channel, record) && syncPolicy == SyncPolicy.EACH_FLUSH) {
+				channel.force(false);
+			}
+			
+			return;
+		}
+		
+		for (int c = 0; c < record.length(); c++) {
+			if (!writeBuffer.hasRemaining()) {
+				flush(channel);
+			}
+			
+			char ch = record.charAt(c);
+			writeBuffer.put(ch <= 0xFF ? (byte) ch : (byte) '?');
+		}
+		
+		if (!writeBuffer.hasRemaining()) {
+			flush(channel);
+		}
+		
+		writeBuffer.put((byte) '\n');
+	}
+	
+	/**
+	 * Writes out whatever appended records are still buffered, then records the import in our manifest.
+	 * 
+	 * @throws IOException: throw exception if file not found.
+	 */
+	public synchronized void endAppend() throws IOException {
+		FileChannel channel = rafController.getChannel();
+		long end;
+		
+		if (blocks != null) {
+			blocks.flush(channel);
+			end = blocks.length();
+			
+			if (syncPolicy != SyncPolicy.NONE) {
+				channel.force(false);
+			}
+		} else {
+			flush(channel);
+			end = channel.position();
+			
+			if (syncPolicy == SyncPolicy.EACH_IMPORT) {
+				channel.force(false);
+			}
+		}
+		
+		grown = true;
+		
+		if (end > appendStart) {
+			recordImport(new ManifestEntry(appendStart, end, appendSource));
+		}
+	}
+	
+	/**
+	 * Writes out and empties the write buffer.
+	 * 
+	 * @param channel: the db file's channel, positioned at the end of the file.
+	 * @throws IOException: throw exception if file not found.
+	 */
+	private void flush(FileChannel channel) throws IOException {
+		writeBuffer.flip();
+		
+		while (writeBuffer.hasRemaining()) {
+			channel.write(writeBuffer);
+		}
+		
+		writeBuffer.clear();
+		
+		if (syncPolicy == SyncPolicy.EACH_FLUSH) {
+			channel.force(false);
+		}
+	}
+	
+	/**
+	 * Maps whatever the file has grown by since the last call. The last chunk may have been
+	 * partial, so it's mapped again along with any new ones.
+	 * 
+	 * @throws IOException: throw exception if file not found.
+	 */
+	private void remap() throws IOException {
+		FileChannel channel = rafController.getChannel();
+		long fileLength = channel.size();
+		
+		int count = (int) ((fileLength + CHUNK_SIZE - 1) / CHUNK_SIZE);
+		int first = Math.max(chunks.length - 1, 0);
+		
+		chunks = Arrays.copyOf(chunks, count);
+		
+		for (int i = first; i < count; i++) {
+			long start = i * CHUNK_SIZE;
+			chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, fileLength - start));
+		}
+		
+		mappedLength = fileLength;
+		grown = false;
+	}
+	
+	/**
+	 * Copies mapped bytes into a buffer, across chunks if need be.
+	 * 
+	 * @param position: the offset of the first byte.
+	 * @param buffer: receives the bytes.
+	 * @param length: the number of bytes, all of them mapped.
+	 */
+	private void copyMapped(long position, byte[] buffer, int length) {
+		int copied = 0;
 		
-		for (int i = 0; i < records.size(); i++)
-			rafController.write((records.get(i) + "\n").getBytes());
+		while (copied < length) {
+			MappedByteBuffer chunk = chunks[(int) (position / CHUNK_SIZE)];
+			int start = (int) (position % CHUNK_SIZE);
+			int count = Math.min(length - copied, chunk.limit() - start);
+			
+			chunk.duplicate().position(start).get(buffer, copied, count);
+			
+			copied += count;
+			position += count;
+		}
 	}
 	
 	/**
 	 * Seeks to specific record given its offset.
+	 * Seeking and reading happen under one lock so concurrent queries can't interleave.
+	 * In MAPPED mode the record is found and decoded in the mapping instead.
+	 * In DEFLATE format it's cut out of its decompressed blocks, whatever the read mode.
 	 * 
 	 * @param offset: the offset where the record is located.
 	 * @return: the record at our specific offset.
 	 * @throws IOException: throw exception if file not found.
 	 */
-	public String seekRecord(long offset) throws IOException {
-		rafController.seek(offset);
-		return rafController.readLine();
+	public synchronized String seekRecord(long offset) throws IOException {
+		if (blocks != null) {
+			return seekBlockRecord(offset);
+		}
+		
+		if (readMode == ReadMode.RANDOM_ACCESS) {
+			rafController.seek(offset);
+			return rafController.readLine();
+		}
+		
+		if (grown) {
+			remap();
+		}
+		
+		if (offset >= mappedLength) {
+			return null;
+		}
+		
+		// Scan the mapping for the end of the line, then decode just the record.
+		long end = offset;
+		
+		while (end < mappedLength && chunks[(int) (end / CHUNK_SIZE)].get((int) (end % CHUNK_SIZE)) != '\n') {
+			end++;
+		}
+		
+		byte[] record = new byte[(int) (end - offset)];
+		copyMapped(offset, record, record.length);
+		
+		return new String(record, StandardCharsets.ISO_8859_1);
 	}
 	
 	/**
-	 * Gets the current size of the database file.
+	 * Finds a record in DEFLATE format, reading its blocks until the end of its line.
 	 * 
-	 * @return: current size of our db file.
+	 * @param offset: the offset where the record is located.
+	 * @return: the record, or null if the offset is past the end of the file.
+	 * @throws IOException: throw exception if file not found.
+	 */
+	private String seekBlockRecord(long offset) throws IOException {
+		FileChannel channel = rafController.getChannel();
+		byte[] buffer = new byte[256];
+		StringBuilder record = null;
+		int read;
+		
+		while ((read = blocks.read(channel, offset, buffer)) > 0) {
+			int end = 0;
+			
+			while (end < read && buffer[end] != '\n') {
+				end++;
+			}
+			
+			String part = new String(buffer, 0, end, StandardCharsets.ISO_8859_1);
+			
+			if (end < read) {
+				return record == null ? part : record.append(part).toString();
+			}
+			
+			if (record == null) {
+				record = new StringBuilder();
+			}
+			
+			record.append(part);
+			offset += read;
+		}
+		
+		return record == null ? null : record.toString();
+	}
+	
+	/**
+	 * Reads a block of the database file. Reading stops early at the end of the file.
+	 * In MAPPED mode the block is copied straight out of the mapping, without a system call.
+	 * In DEFLATE format the bytes are decompressed from the blocks holding them, whatever the read mode.
+	 * 
+	 * @param position: the offset of the block's first byte.
+	 * @param buffer: receives the block.
+	 * @return: the number of bytes read.
 	 * @throws IOException: throw exception if file not found.
 	 */
-	public int length() throws IOException {
-		return (int) rafController.length();
+	@Override
+	public synchronized int readBlock(long position, byte[] buffer) throws IOException {
+		if (blocks != null) {
+			return blocks.read(rafController.getChannel(), position, buffer);
+		}
+		
+		if (readMode == ReadMode.MAPPED) {
+			if (grown) {
+				remap();
+			}
+			
+			int length = (int) Math.max(0, Math.min(buffer.length, mappedLength - position));
+			copyMapped(position, buffer, length);
+			
+			return length;
+		}
+		
+		rafController.seek(position);
+		
+		int length = 0;
+		int read;
+		
+		while (length < buffer.length && (read = rafController.read(buffer, length, buffer.length - length)) > 0) {
+			length += read;
+		}
+		
+		return length;
+	}
+	
+	/**
+	 * Opens a stream over the lines of the database file, header first, as they'd read from a
+	 * plain text db file. It reads through readBlock, so the file must stay open while it's read.
+	 * 
+	 * @return: the stream.
+	 */
+	public InputStream newInputStream() {
+		return new InputStream() {
+			private final byte[] block = new byte[BLOCK_SIZE];
+			private long position;
+			private int next, count;
+			
+			@Override
+			public int read() throws IOException {
+				if (next == count && !fill()) {
+					return -1;
+				}
+				
+				return block[next++] & 0xFF;
+			}
+			
+			@Override
+			public int read(byte[] buffer, int offset, int length) throws IOException {
+				if (length == 0) {
+					return 0;
+				}
+				
+				if (next == count && !fill()) {
+					return -1;
+				}
+				
+				int n = Math.min(length, count - next);
+				System.arraycopy(block, next, buffer, offset, n);
+				next += n;
+				
+				return n;
+			}
+			
+			private boolean fill() throws IOException {
+				count = readBlock(position, block);
+				position += count;
+				next = 0;
+				
+				return count > 0;
+			}
+		};
 	}
 	
+	/**
+	 * Gets the current size of the database file. In DEFLATE format that's the size of its records
+	 * as plain text, which is what their offsets count.
+	 * 
+	 * @return: current size of our db file.
+	 * @throws IOException: throw exception if file not found.
+	 */
+	public long length() throws IOException {
+		return blocks != null ? blocks.length() : rafController.length();
+	}
 	
 }
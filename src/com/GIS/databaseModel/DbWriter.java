@@ -2,9 +2,13 @@ package com.GIS.databaseModel;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
 
+import com.GIS.util.FieldTokenizer;
 import com.GIS.world.CoordinateParser;
 
 /**
@@ -15,6 +19,17 @@ public class DbWriter {
 	
 	private FileWriter fw;
 	
+	// The columns each query logs, the only ones it fetches.
+	public static final Set<Feature.Column> WHAT_IS_COLUMNS = Collections.unmodifiableSet(
+			EnumSet.of(Feature.Column.COUNTY, Feature.Column.LATITUDE, Feature.Column.LONGITUDE));
+	public static final Set<Feature.Column> WHAT_IS_AT_COLUMNS = Collections.unmodifiableSet(
+			EnumSet.of(Feature.Column.NAME, Feature.Column.STATE, Feature.Column.COUNTY));
+	public static final Set<Feature.Column> WHAT_IS_IN_COLUMNS = Collections.unmodifiableSet(
+			EnumSet.of(Feature.Column.NAME, Feature.Column.LATITUDE, Feature.Column.LONGITUDE));
+	// "what_is_in -long" logs every field, so it reads whole records from the db file through the buffer pool.
+	public static final Set<Feature.Column> WHAT_IS_IN_LONG_COLUMNS = Collections.unmodifiableSet(
+			EnumSet.of(Feature.Column.RECORD));
+	
 	public DbWriter(FileWriter fw) {
 		this.fw = fw;
 	}
@@ -43,27 +58,58 @@ public class DbWriter {
 	public void logImport(long[] result) throws IOException {
 		fw.write("Imported Features by name: " + result[0] + "\n");
 		fw.write("Imported Locations:\t   " + result[1] + "\n");
-		fw.write("Average name length:\t   " + result[2]);
+		fw.write("Average name length:\t   " + result[2] + "\n");
+		fw.write("Import rate:\t\t   " + result[3] + " records/sec");
+	}
+	
+	// Writes out results from "reopen" command execution.
+	public void logReopen(String dbFileName, long[] result) throws IOException {
+		fw.write("Reopened " + dbFileName + "\n");
+		fw.write("Indexed Features by name: " + result[0] + "\n");
+		fw.write("Indexed Locations:\t   " + result[1] + "\n");
+		fw.write("Records:\t\t   " + result[2] + "\n");
+		fw.write("Imports in manifest:\t   " + result[3]);
+	}
+	
+	// Writes out results from "save_index" command execution.
+	public void logSaveIndex(String file, long[] result) throws IOException {
+		fw.write("Saved index to " + file + "\n");
+		logSnapshot(result);
+	}
+	
+	// Writes out results from "load_index" command execution.
+	public void logLoadIndex(String file, long[] result) throws IOException {
+		fw.write("Loaded index from " + file + "\n");
+		logSnapshot(result);
+	}
+	
+	// Writes out what an index snapshot holds.
+	private void logSnapshot(long[] result) throws IOException {
+		fw.write("Features by name:\t   " + result[0] + "\n");
+		fw.write("Locations:\t\t   " + result[1] + "\n");
+		fw.write("Records:\t\t   " + result[2] + "\n");
+		fw.write("Snapshot size:\t\t   " + result[3] + " bytes");
 	}
 	
 	// Writes out results from "what_is" command execution.
-	public void logWhatIs(String name, String state, Map<Long, String> records) throws IOException {
+	public void logWhatIs(String name, String state, Map<Long, Feature> records) throws IOException {
 		if (records.size() == 0) {
 			fw.write("No records match " + name + " and " + state + "\n");
 		}
 		
 		for (Long offset : records.keySet()) {
-			if (records.get(offset) != null) {
-				String[] values = records.get(offset).split("\\|");
-				fw.write("\t" + offset + ":\t" + values[5] + "\t(" 
-						+ CoordinateParser.parseLongitude(values[8]) + ", " 
-						+ CoordinateParser.parseLatitude(values[7]) + ")");
+			Feature feature = records.get(offset);
+			
+			if (feature != null) {
+				fw.write("\t" + offset + ":\t" + feature.getCounty() + "\t(" 
+						+ CoordinateParser.render(feature.getLongitude()) + ", " 
+						+ CoordinateParser.render(feature.getLatitude()) + ")");
 			}
 		}
 	}
 	
 	// Writes out results from "what_is_at" command execution.
-	public void logWhatIsAt(String latDMS, String longDMS, Map<Long, String> records) throws IOException {
+	public void logWhatIsAt(String latDMS, String longDMS, Map<Long, Feature> records) throws IOException {
 		if (records.size() == 0) {
 			fw.write("\tNothing was found at (" + CoordinateParser.parseLongitude(longDMS) + ", " 
 					+ CoordinateParser.parseLatitude(latDMS) + ")");
@@ -73,26 +119,97 @@ public class DbWriter {
 					+ CoordinateParser.parseLatitude(latDMS) + "):\n");
 		
 		for (Long offset : records.keySet()) {
-			String[] values = records.get(offset).split("\\|");
-			fw.write("\t " + offset + ": " + values[1] + " " + values[5] + " " + values[3]);
+			Feature feature = records.get(offset);
+			fw.write("\t " + offset + ": " + feature.getName() + " " + feature.getCounty() + " " + feature.getState());
 		}
 	}
 	
 	// Writes out results from "what_is_in" command execution.
-	public void logWhatIsIn(String centerLat, String centerLong, long halfY, long halfX, Map<Long, String> records) throws IOException {
-		if (records.size() == 0) {
+	public void logWhatIsIn(String centerLat, String centerLong, long halfY, long halfX, Map<Long, Feature> records) throws IOException {
+		logWhatIsInHeading(centerLat, centerLong, halfY, halfX, records.size());
+		
+		for (Long offset : records.keySet()) {
+			logWhatIsInRecord(offset, records.get(offset));
+		}
+	}
+	
+	// Writes out the heading for a streamed "what_is_in" command, the returned handler writes each record as it's fetched.
+	// The count is only known once every record has been, so logWhatIsInCount writes it last.
+	public RecordHandler logWhatIsIn(String centerLat, String centerLong, long halfY, long halfX) throws IOException {
+		logWhatIsInStreamHeading(centerLat, centerLong, halfY, halfX);
+		
+		return this::logWhatIsInRecord;
+	}
+	
+	// Writes out the heading for a streamed "what_is_in -long" command, the returned handler writes every field of each record.
+	public RecordHandler logWhatIsInLong(String centerLat, String centerLong, long halfY, long halfX) throws IOException {
+		logWhatIsInStreamHeading(centerLat, centerLong, halfY, halfX);
+		
+		FieldTokenizer labels = new FieldTokenizer().reset(DbFileModel.HEADER);
+		FieldTokenizer fields = new FieldTokenizer();
+		
+		return (offset, feature) -> logWhatIsInFields(offset, feature, labels, fields);
+	}
+	
+	// Writes out how many records a streamed "what_is_in" command found, after the records themselves.
+	public void logWhatIsInCount(long count) throws IOException {
+		if (count == 0) {
+			fw.write("\n\tNothing was found");
+		} else {
+			fw.write("\n\t" + count + " feature(s) were found");
+		}
+	}
+	
+	private void logWhatIsInHeading(String centerLat, String centerLong, long halfY, long halfX, long count) throws IOException {
+		if (count == 0) {
 			fw.write("\tNothing was found in (" + CoordinateParser.parseLongitude(centerLong) + " +/- " + halfX + 
 					", " + CoordinateParser.parseLatitude(centerLat) + " +/- " + halfY + "\n");
 		}
 		
-		fw.write("\tThe following " + records.size() + " feature(s) were found in (" + CoordinateParser.parseLongitude(centerLong) + " +/- " + halfX + 
+		fw.write("\tThe following " + count + " feature(s) were found in (" + CoordinateParser.parseLongitude(centerLong) + " +/- " + halfX + 
 					", " + CoordinateParser.parseLatitude(centerLat) + " +/- " + halfY);
+	}
+	
+	private void logWhatIsInStreamHeading(String centerLat, String centerLong, long halfY, long halfX) throws IOException {
+		fw.write("\tThe following feature(s) were found in (" + CoordinateParser.parseLongitude(centerLong) + " +/- " + halfX + 
+					", " + CoordinateParser.parseLatitude(centerLat) + " +/- " + halfY + ")");
+	}
+	
+	private void logWhatIsInRecord(long offset, Feature feature) throws IOException {
+		fw.write("\n\t " + offset + ":\t" + feature.getName() + "\t(" 
+				+ CoordinateParser.render(feature.getLongitude()) + ", " 
+				+ CoordinateParser.render(feature.getLatitude()) + ")");
+	}
+	
+	// Writes each non-empty field of a record on a line of its own, labelled from the db file's header.
+	private void logWhatIsInFields(long offset, Feature feature, FieldTokenizer labels, FieldTokenizer fields) throws IOException {
+		fw.write("\n\t " + offset + ":");
+		fields.reset(feature.getRecord());
+		
+		for (int i = 0; i < fields.fieldCount() && i < labels.fieldCount(); i++) {
+			if (fields.length(i) > 0) {
+				fw.write("\n\t\t" + String.format("%-17s", labels.field(i) + ":") + fields.field(i));
+			}
+		}
+	}
+	
+	// Writes out results from "what_is_near" command execution.
+	public void logWhatIsNear(String latDMS, String longDMS, int k, Map<Long, Feature> records) throws IOException {
+		fw.write("\tThe following " + records.size() + " of the " + k + " nearest feature(s) were found near (" 
+				+ CoordinateParser.parseLongitude(longDMS) + ", " + CoordinateParser.parseLatitude(latDMS) + ")");
+		
+		for (Long offset : records.keySet()) {
+			logWhatIsInRecord(offset, records.get(offset));
+		}
+	}
+	
+	// Writes out results from "what_is_within" command execution.
+	public void logWhatIsWithin(String latDMS, String longDMS, double radius, Map<Long, Feature> records) throws IOException {
+		fw.write("\tThe following " + records.size() + " feature(s) were found within " + radius + "m of (" 
+				+ CoordinateParser.parseLongitude(longDMS) + ", " + CoordinateParser.parseLatitude(latDMS) + ")");
 		
 		for (Long offset : records.keySet()) {
-			String[] values = records.get(offset).split("\\|");
-			fw.write("\n\t " + offset + ":\t" + values[1] + "\t(" 
-					+ CoordinateParser.parseLongitude(values[8]) + ", " 
-					+ CoordinateParser.parseLatitude(values[7]) + ")");
+			logWhatIsInRecord(offset, records.get(offset));
 		}
 	}
 	
@@ -0,0 +1,79 @@
+package com.GIS.databaseModel;
+
+import java.io.FileWriter;
+import java.io.IOException;
+
+import com.GIS.databaseModel.Bufferpool.Node;
+
+/**
+ * Decides which node a Bufferpool gives up when it runs over its byte budget.
+ * The pool owns the key lookup and the byte accounting, a policy only keeps its nodes in
+ * whatever order it needs and picks victims.
+ * 
+ * @author Mansour Najah
+ */
+public interface EvictionPolicy {
+	
+	/**
+	 * Returns the policy's name, as shown by "show pool".
+	 */
+	public String getName();
+	
+	/**
+	 * Called when a cached node is fetched.
+	 */
+	public void onHit(Node node);
+	
+	/**
+	 * Called when a key is looked up but isn't cached.
+	 */
+	public void onMiss(long key);
+	
+	/**
+	 * Called when a node enters the pool.
+	 */
+	public void onInsert(Node node);
+	
+	/**
+	 * Called when a node leaves the pool other than through evict().
+	 */
+	public void remove(Node node);
+	
+	/**
+	 * Chooses a victim, which may be the node that was just inserted, and drops it from the
+	 * policy's bookkeeping. Only called while the pool holds at least one node.
+	 * 
+	 * @return: the node to be evicted.
+	 */
+	public Node evict();
+	
+	/**
+	 * Writes the cached nodes in the policy's order.
+	 * 
+	 * @param fw: FileWriter object that will write to our log.
+	 * @throws IOException
+	 */
+	public void display(FileWriter fw) throws IOException;
+	
+	/**
+	 * Creates a policy by name: "lru", "clock", "2q" or "tinylfu".
+	 * 
+	 * @param name: the name of the policy, case insensitive.
+	 * @param budget: the byte budget of the pool the policy will serve.
+	 * @return: the new policy.
+	 */
+	public static EvictionPolicy forName(String name, long budget) {
+		switch (name.toLowerCase()) {
+			case "lru":
+				return new LruPolicy();
+			case "clock":
+				return new ClockPolicy();
+			case "2q":
+				return new TwoQueuePolicy(budget);
+			case "tinylfu":
+				return new TinyLfuPolicy(budget);
+			default:
+				throw new IllegalArgumentException("Unknown eviction policy: " + name);
+		}
+	}
+}
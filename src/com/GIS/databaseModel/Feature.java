@@ -0,0 +1,65 @@
+package com.GIS.databaseModel;
+
+/**
+ * A feature as a query hands it over: just the columns of its record the query asked for.
+ * Columns it didn't ask for are null, coordinates CoordinateParser.UNKNOWN_PACKED.
+ *
+ * @author Mansour Najah
+ */
+public class Feature {
+	
+	/**
+	 * The columns a query can ask for. All but RECORD come out of our column store without
+	 * touching the db file, RECORD is the whole line, read through our buffer pool.
+	 */
+	public enum Column {
+		NAME, STATE, COUNTY, LATITUDE, LONGITUDE, RECORD
+	}
+	
+	private final String name;
+	private final String state;
+	private final String county;
+	private final int latitude;
+	private final int longitude;
+	private final String record;
+	
+	Feature(String name, String state, String county, int latitude, int longitude, String record) {
+		this.name = name;
+		this.state = state;
+		this.county = county;
+		this.latitude = latitude;
+		this.longitude = longitude;
+		this.record = record;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public String getState() {
+		return state;
+	}
+	
+	public String getCounty() {
+		return county;
+	}
+	
+	/**
+	 * Returns the feature's latitude, packed, see CoordinateParser.pack.
+	 */
+	public int getLatitude() {
+		return latitude;
+	}
+	
+	/**
+	 * Returns the feature's longitude, packed, see CoordinateParser.pack.
+	 */
+	public int getLongitude() {
+		return longitude;
+	}
+	
+	public String getRecord() {
+		return record;
+	}
+	
+}
@@ -0,0 +1,208 @@
+package com.GIS.databaseModel;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Streams the records of a GIS data file to an import in batches.
+ * A reader thread reads lines, works out each one's db file offset and hands every batch to a
+ * pool of workers, which parse and index it into a partial index of type P. Batches come back
+ * out in file order no matter which worker finishes first. Only a few batches are ever in
+ * flight, so memory use doesn't grow with the size of the file.
+ *
+ * @author Mansour Najah
+ *
+ * @param <P>: the partial index built from each batch.
+ */
+class ImportPipeline<P> implements Closeable {
+
+	// Records per batch.
+	private static final int BATCH_SIZE = 1024;
+
+	/**
+	 * Builds a partial index from a batch of records. Called from the worker threads, so it
+	 * mustn't touch anything shared.
+	 *
+	 * @param <P>: the partial index.
+	 */
+	@FunctionalInterface
+	interface Indexer<P> {
+		/**
+		 * @param lines: the batch's records, in file order.
+		 * @param offset: the db file offset of the first record, each record takes its length plus a line break.
+		 * @return: the batch's partial index.
+		 */
+		P index(List<String> lines, long offset);
+	}
+
+	/**
+	 * A batch of records along with the partial index built from them.
+	 */
+	static class Batch<P> {
+		final List<String> lines;
+		final P partial;
+
+		Batch(List<String> lines, P partial) {
+			this.lines = lines;
+			this.partial = partial;
+		}
+	}
+
+	// Batches in file order, a finished null batch marks the end of the file.
+	private final BlockingQueue<Future<Batch<P>>> batches;
+
+	private final ExecutorService workers;
+	private final Thread reader;
+	private volatile IOException failure;
+
+	/**
+	 * Opens a data file and starts reading and indexing it. The first line holds the
+	 * column names and is skipped.
+	 *
+	 * @param file: the data file to be imported.
+	 * @param offset: the db file offset the first record will be appended at.
+	 * @param workerCount: the number of worker threads.
+	 * @param indexer: builds each batch's partial index.
+	 * @throws IOException: throws exception if file is not found.
+	 */
+	ImportPipeline(String file, long offset, int workerCount, Indexer<P> indexer) throws IOException {
+		this(new FileInputStream(file), offset, workerCount, indexer);
+	}
+
+	/**
+	 * Starts reading and indexing a stream of records, such as our own db file's. The first line
+	 * holds the column names and is skipped. The stream is closed once it's been read.
+	 *
+	 * @param stream: the records to be imported.
+	 * @param offset: the db file offset of the first record.
+	 * @param workerCount: the number of worker threads.
+	 * @param indexer: builds each batch's partial index.
+	 */
+	ImportPipeline(InputStream stream, long offset, int workerCount, Indexer<P> indexer) {
+		if (workerCount < 1) {
+			throw new IllegalArgumentException("An import needs at least one worker.");
+		}
+
+		// Latin-1 decodes each byte to one char, the same as RandomAccessFile.readLine.
+		BufferedReader in = new BufferedReader(new InputStreamReader(stream, StandardCharsets.ISO_8859_1), 1 << 16);
+
+		batches = new ArrayBlockingQueue<>(2 * workerCount + 2);
+		workers = Executors.newFixedThreadPool(workerCount, task -> {
+			Thread worker = new Thread(task, "import-worker");
+			worker.setDaemon(true);
+			return worker;
+		});
+
+		reader = new Thread(() -> read(in, offset, indexer), "import-reader");
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/**
+	 * Reader stage, hands the lines of the file to the workers in batches.
+	 */
+	private void read(BufferedReader in, long offset, Indexer<P> indexer) {
+		try (in) {
+			in.readLine();
+
+			List<String> lines = new ArrayList<>(BATCH_SIZE);
+			long batchOffset = offset;
+			String line;
+
+			while ((line = in.readLine()) != null) {
+				lines.add(line);
+				offset += line.length() + 1;
+
+				if (lines.size() == BATCH_SIZE) {
+					submit(lines, batchOffset, indexer);
+					lines = new ArrayList<>(BATCH_SIZE);
+					batchOffset = offset;
+				}
+			}
+
+			if (!lines.isEmpty()) {
+				submit(lines, batchOffset, indexer);
+			}
+		} catch (IOException e) {
+			failure = e;
+		} catch (InterruptedException e) {
+			return;
+		}
+
+		try {
+			batches.put(CompletableFuture.completedFuture(null));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Queues a batch up for indexing, waiting if too many are in flight already.
+	 */
+	private void submit(List<String> lines, long offset, Indexer<P> indexer) throws InterruptedException {
+		batches.put(workers.submit(() -> new Batch<>(lines, indexer.index(lines, offset))));
+	}
+
+	/**
+	 * Waits for the next batch in file order.
+	 *
+	 * @return: the batch, or null once the whole file has been read.
+	 * @throws IOException: if reading the file failed.
+	 */
+	Batch<P> nextBatch() throws IOException {
+		Future<Batch<P>> next;
+		Batch<P> batch;
+
+		try {
+			next = batches.take();
+			batch = next.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Import interrupted.");
+		} catch (ExecutionException e) {
+			// Rethrow whatever the indexer threw.
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+
+		if (batch == null) {
+			// Don't hand out the end marker again.
+			batches.offer(next);
+
+			if (failure != null) {
+				throw failure;
+			}
+		}
+
+		return batch;
+	}
+
+	/**
+	 * Stops the reader and the workers, whether or not the whole file was read.
+	 */
+	@Override
+	public void close() {
+		reader.interrupt();
+		workers.shutdownNow();
+	}
+}
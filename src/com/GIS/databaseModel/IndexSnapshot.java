@@ -0,0 +1,313 @@
+package com.GIS.databaseModel;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import com.GIS.hashtable.nameEntry;
+import com.GIS.hashtable.openHashTable;
+import com.GIS.util.OffsetList;
+import com.GIS.util.StringDictionary;
+import com.GIS.world.Point;
+import com.GIS.world.prQuadTree;
+
+/**
+ * A binary snapshot of our name index and world, so a db file can be queried again after a
+ * restart without importing its records all over.
+ *
+ * A snapshot starts with a fixed size header: a magic number, the format version, the length
+ * of the db file it indexes, the number of records, names and locations, the table's slot count
+ * and load limit, the world's bucket size, depth limit and boundaries, and a CRC32 of everything
+ * after the header. The table's entries follow in the order openHashTable.forEach gives them,
+ * then the world's nodes as prQuadTree.write lays them out. Both come back exactly as they were,
+ * down to which slot and which bucket holds each entry. Our column store's dictionaries and
+ * directory come last, as ColumnStore.write lays them out. Its rows stay in the column file, whose
+ * length is checked when the snapshot is loaded.
+ *
+ * Snapshots are written to a temporary file that replaces the old one once it's complete, and
+ * are read straight out of a single memory mapping. A ByteBuffer only reaches 2 GB, so that's as
+ * big as a snapshot can get; saving a bigger one fails and leaves the old one in place.
+ *
+ * @author Mansour Najah
+ */
+final class IndexSnapshot {
+	
+	// "GISX", then the version of the layout below.
+	private static final int MAGIC = 0x47495358;
+	private static final int VERSION = 3;
+	
+	// magic, version, db length, records, names, locations, slots, load limit, bucket size,
+	// depth limit, four boundaries and the checksum.
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4 + 4 + 8 + 4 + 4 + 4 * 8 + 8;
+	
+	// The most bytes one mapping can hold.
+	private static final long MAX_SIZE = Integer.MAX_VALUE;
+	
+	// Writes and reads the locations in our world, each with its offsets.
+	private static final prQuadTree.ElementCodec<Point> POINTS = new prQuadTree.ElementCodec<Point>() {
+		@Override
+		public void write(Point loc, DataOutput out) throws IOException {
+			out.writeLong(loc.getX());
+			out.writeLong(loc.getY());
+			writeOffsets(loc.getOffsets(), out);
+		}
+		
+		@Override
+		public Point read(ByteBuffer in) throws IOException {
+			Point loc = new Point(in.getLong(), in.getLong());
+			int count = readCount(in);
+			
+			for (int i = 0; i < count; i++) {
+				loc.addOffset(in.getLong());
+			}
+			
+			return loc;
+		}
+	};
+	
+	final openHashTable<nameEntry> table;
+	final prQuadTree<Point> world;
+	final ColumnStore columns;
+	final long dbLength;
+	
+	// Filled in once the snapshot is saved or loaded.
+	private long records;
+	private int locations;
+	private long bytes;
+	
+	/**
+	 * Creates a snapshot of our indices.
+	 *
+	 * @param table: our name index.
+	 * @param world: our world.
+	 * @param columns: our column store.
+	 * @param dbLength: the length of the db file they index.
+	 */
+	IndexSnapshot(openHashTable<nameEntry> table, prQuadTree<Point> world, ColumnStore columns, long dbLength) {
+		this.table = table;
+		this.world = world;
+		this.columns = columns;
+		this.dbLength = dbLength;
+	}
+	
+	/**
+	 * Returns the names, locations and records in the snapshot and its size in bytes.
+	 */
+	long[] summary() {
+		return new long[] {table.size(), locations, records, bytes};
+	}
+	
+	/**
+	 * Writes the snapshot to a file, replacing whatever snapshot was there.
+	 *
+	 * @param file: the snapshot file.
+	 * @throws IOException: throw exception if the file can't be written, or would be too big to load.
+	 */
+	void save(String file) throws IOException {
+		Path target = Paths.get(file).toAbsolutePath();
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+		
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			// The body goes after room for the header, which needs its checksum.
+			channel.position(HEADER_SIZE);
+			CRC32 crc = new CRC32();
+			
+			// Left open, closing it would close the channel before the header is in.
+			DataOutputStream out = new DataOutputStream(
+					new CheckedOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+			
+			records = 0;
+			
+			table.forEach(entry -> {
+				try {
+					byte[] key = entry.key().getBytes(StandardCharsets.ISO_8859_1);
+					out.writeInt(key.length);
+					out.write(key);
+					writeOffsets(entry.locations(), out);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				
+				records += entry.locations().size();
+			});
+			
+			locations = world.write(out, POINTS);
+			columns.write(out);
+			out.flush();
+			
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putLong(dbLength).putLong(records)
+					.putInt(table.size()).putInt(locations).putInt(table.capacity()).putDouble(table.getLoadLimit())
+					.putInt(world.getBucketSize()).putInt(world.getMaxDepth())
+					.putLong(world.xMin).putLong(world.xMax).putLong(world.yMin).putLong(world.yMax)
+					.putLong(crc.getValue()).flip();
+			
+			while (header.hasRemaining()) {
+				channel.write(header, header.position());
+			}
+			
+			if (channel.size() > MAX_SIZE) {
+				throw new IOException(tooBig(file, channel.size()));
+			}
+			
+			channel.force(true);
+			bytes = channel.size();
+		} catch (UncheckedIOException e) {
+			Files.deleteIfExists(temp);
+			throw e.getCause();
+		} catch (IOException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+		
+		Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	/**
+	 * Reads a snapshot from a file. The header and checksum are checked before anything is rebuilt.
+	 *
+	 * @param file: the snapshot file.
+	 * @param columnsFile: the file of the column store the snapshot was taken of.
+	 * @return: the snapshot, holding a new table and world, and a column store with its file open.
+	 * @throws IOException: throw exception if the file isn't found, isn't a snapshot, is corrupt or
+	 *                      doesn't match the column file.
+	 */
+	static IndexSnapshot load(String file, String columnsFile) throws IOException {
+		MappedByteBuffer in;
+		
+		try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_SIZE) {
+				throw new IOException(file + " is not an index snapshot.");
+			}
+			
+			if (channel.size() > MAX_SIZE) {
+				throw new IOException(tooBig(file, channel.size()));
+			}
+			
+			in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		
+		if (in.getInt() != MAGIC) {
+			throw new IOException(file + " is not an index snapshot.");
+		}
+		
+		int version = in.getInt();
+		
+		if (version != VERSION) {
+			throw new IOException(file + " is a version " + version + " index snapshot, expected version " + VERSION + ".");
+		}
+		
+		long dbLength = in.getLong();
+		long records = in.getLong();
+		int names = in.getInt();
+		int locations = in.getInt();
+		int slots = in.getInt();
+		double loadLimit = in.getDouble();
+		int bucketSize = in.getInt();
+		int maxDepth = in.getInt();
+		long xMin = in.getLong(), xMax = in.getLong(), yMin = in.getLong(), yMax = in.getLong();
+		long checksum = in.getLong();
+		
+		CRC32 crc = new CRC32();
+		crc.update(in.duplicate());
+		
+		if (crc.getValue() != checksum) {
+			throw new IOException(file + " is corrupt, its checksum doesn't match.");
+		}
+		
+		try {
+			// Entries go back in the order they were written, into a table of the same size,
+			// so each one lands in the slot it came from.
+			openHashTable<nameEntry> table = new openHashTable<>(slots, loadLimit);
+			long offsets = 0;
+			
+			for (int i = 0; i < names; i++) {
+				byte[] key = new byte[readCount(in)];
+				in.get(key);
+				
+				int count = readCount(in);
+				nameEntry entry = new nameEntry(new String(key, StandardCharsets.ISO_8859_1), in.getLong());
+				
+				for (int j = 1; j < count; j++) {
+					entry.addLocation(in.getLong());
+				}
+				
+				if (!table.insert(entry)) {
+					throw new IOException(file + " is corrupt, it repeats the name " + entry.key() + ".");
+				}
+				
+				offsets += count;
+			}
+			
+			prQuadTree<Point> world = new prQuadTree<>(xMin, xMax, yMin, yMax, bucketSize, maxDepth);
+			int read = world.read(in, POINTS);
+			ColumnStore columns = ColumnStore.read(in, columnsFile, new StringDictionary());
+			
+			if (table.capacity() != slots || offsets != records || read != locations || columns.size() != records
+					|| in.hasRemaining()) {
+				columns.close();
+				throw new IOException(file + " is corrupt, its contents don't match its header.");
+			}
+			
+			// Every entry of a state shares the column store's copy of it, as after an import.
+			table.forEach(entry -> entry.internState(columns.states()));
+			
+			IndexSnapshot snapshot = new IndexSnapshot(table, world, columns, dbLength);
+			snapshot.records = records;
+			snapshot.locations = locations;
+			snapshot.bytes = in.capacity();
+			
+			return snapshot;
+		} catch (RuntimeException e) {
+			// Running off the end of the buffer, a bad table size and the like.
+			throw new IOException(file + " is corrupt: " + e, e);
+		}
+	}
+	
+	/**
+	 * Describes a snapshot too big to be mapped in one piece.
+	 */
+	private static String tooBig(String file, long size) {
+		return file + " is " + size + " bytes, an index snapshot can be at most " + MAX_SIZE + " bytes.";
+	}
+	
+	/**
+	 * Writes a count followed by the offsets of a list.
+	 */
+	private static void writeOffsets(OffsetList offsets, DataOutput out) throws IOException {
+		out.writeInt(offsets.size());
+		
+		for (int i = 0; i < offsets.size(); i++) {
+			out.writeLong(offsets.get(i));
+		}
+	}
+	
+	/**
+	 * Reads a count, which must be at least one.
+	 */
+	private static int readCount(ByteBuffer in) throws IOException {
+		int count = in.getInt();
+		
+		if (count < 1) {
+			throw new IOException("Corrupt index snapshot, found a count of " + count + ".");
+		}
+		
+		return count;
+	}
+	
+}
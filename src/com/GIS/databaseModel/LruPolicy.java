@@ -0,0 +1,53 @@
+package com.GIS.databaseModel;
+
+import java.io.FileWriter;
+import java.io.IOException;
+
+import com.GIS.databaseModel.Bufferpool.Node;
+
+/**
+ * Strict least recently used eviction.
+ * 
+ * @author Mansour Najah
+ */
+public class LruPolicy implements EvictionPolicy {
+	
+	// Most recently used node at the head, least recently used at the tail.
+	private final NodeList order = new NodeList();
+	
+	@Override
+	public String getName() {
+		return "LRU";
+	}
+	
+	@Override
+	public void onHit(Node node) {
+		order.moveToFront(node);
+	}
+	
+	@Override
+	public void onMiss(long key) {
+	}
+	
+	@Override
+	public void onInsert(Node node) {
+		order.addFirst(node);
+	}
+	
+	@Override
+	public void remove(Node node) {
+		order.unlink(node);
+	}
+	
+	@Override
+	public Node evict() {
+		return order.removeLast();
+	}
+	
+	@Override
+	public void display(FileWriter fw) throws IOException {
+		fw.write("MRU\n");
+		order.display(fw);
+		fw.write("LRU");
+	}
+}
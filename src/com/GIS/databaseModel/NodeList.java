@@ -0,0 +1,146 @@
+package com.GIS.databaseModel;
+
+import java.io.FileWriter;
+import java.io.IOException;
+
+import com.GIS.databaseModel.Bufferpool.Node;
+
+/**
+ * A doubly linked list threaded through Bufferpool nodes, shared by the eviction policies.
+ * Linking, unlinking and moving a node are all constant time. The list also keeps a running
+ * total of its nodes' weights.
+ * 
+ * @author Mansour Najah
+ */
+class NodeList {
+	
+	private Node head, tail;
+	private long bytes;
+	private int size;
+	
+	/**
+	 * Returns the first (newest) node, or null if the list is empty.
+	 */
+	Node head() {
+		return head;
+	}
+	
+	/**
+	 * Returns the last (oldest) node, or null if the list is empty.
+	 */
+	Node tail() {
+		return tail;
+	}
+	
+	/**
+	 * Returns the total weight of the nodes in the list.
+	 */
+	long bytes() {
+		return bytes;
+	}
+	
+	int size() {
+		return size;
+	}
+	
+	boolean isEmpty() {
+		return head == null;
+	}
+	
+	/**
+	 * Links a node in at the head of the list.
+	 * 
+	 * @param node: a node that isn't in any list.
+	 */
+	void addFirst(Node node) {
+		node.prev = null;
+		node.next = head;
+		
+		if (head != null) {
+			head.prev = node;
+		} else {
+			tail = node;
+		}
+		
+		head = node;
+		bytes += node.weight;
+		size++;
+	}
+	
+	/**
+	 * Unlinks a node from the list.
+	 * 
+	 * @param node: a node in this list.
+	 */
+	void unlink(Node node) {
+		if (node.prev != null) {
+			node.prev.next = node.next;
+		} else {
+			head = node.next;
+		}
+		
+		if (node.next != null) {
+			node.next.prev = node.prev;
+		} else {
+			tail = node.prev;
+		}
+		
+		node.prev = null;
+		node.next = null;
+		bytes -= node.weight;
+		size--;
+	}
+	
+	/**
+	 * Moves a node in this list to its head.
+	 */
+	void moveToFront(Node node) {
+		if (node != head) {
+			unlink(node);
+			addFirst(node);
+		}
+	}
+	
+	/**
+	 * Unlinks and returns the last node, or null if the list is empty.
+	 */
+	Node removeLast() {
+		Node last = tail;
+		
+		if (last != null) {
+			unlink(last);
+		}
+		
+		return last;
+	}
+	
+	/**
+	 * Writes each node of the list from head to tail, one per line.
+	 * Values that aren't a line of text, such as pages of the db file spanning several lines or
+	 * pages of a column file, are shown by their size.
+	 * 
+	 * @param fw: FileWriter object that will write to our log.
+	 * @throws IOException
+	 */
+	void display(FileWriter fw) throws IOException {
+		for (Node node = head; node != null; node = node.next) {
+			if (!isLine(node.val))
+				fw.write("\t" + node.key + " (" + node.val.length() + " bytes)\n");
+			else
+				fw.write("\t" + node.key + " " + node.val + "\n");
+		}
+	}
+	
+	/**
+	 * Returns true iff a value holds no line breaks or other control characters.
+	 */
+	private static boolean isLine(String val) {
+		for (int i = 0; i < val.length(); i++) {
+			if (val.charAt(i) < ' ') {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+}
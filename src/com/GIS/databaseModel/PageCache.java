@@ -0,0 +1,199 @@
+package com.GIS.databaseModel;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Caches fixed-size pages of the db file and cuts records out of them by offset.
+ * Records imported together sit next to each other in the file, so the records of
+ * neighbouring features usually come out of a page that's already been read.
+ * Pages are kept as Latin-1 strings, one char per byte, so a record's offset is also
+ * its index in the page, and a page's weight in the pool is its size in bytes.
+ * Any other file read through a Source can be cached the same way, like a column store's.
+ *
+ * @author Mansour Najah
+ */
+public class PageCache {
+	
+	// Default page size, pages start at multiples of it.
+	public static final int DEFAULT_PAGE_SIZE = 4096;
+	
+	// Default number of bytes cached, about 15 default sized pages.
+	public static final long DEFAULT_BUDGET = 64 * 1024;
+	
+	/**
+	 * Where pages are read from.
+	 */
+	public interface Source {
+		
+		/**
+		 * Reads bytes into a buffer, stopping early only at the end of the source.
+		 *
+		 * @param position: the offset of the first byte.
+		 * @param buffer: receives the bytes.
+		 * @return: the number of bytes read.
+		 * @throws IOException
+		 */
+		int readBlock(long position, byte[] buffer) throws IOException;
+	}
+	
+	private final ConcurrentBufferpool pool;
+	private final int pageSize;
+	
+	/**
+	 * Creates a page cache with 4 KB pages and a given budget and eviction policy.
+	 *
+	 * @param budget: the amount of bytes that the cache can hold.
+	 * @param policyName: the name of the eviction policy, see EvictionPolicy.forName.
+	 */
+	public PageCache(long budget, String policyName) {
+		this(budget, policyName, DEFAULT_PAGE_SIZE);
+	}
+	
+	/**
+	 * Creates a page cache.
+	 *
+	 * @param budget: the amount of bytes that the cache can hold.
+	 * @param policyName: the name of the eviction policy, see EvictionPolicy.forName.
+	 * @param pageSize: the size of a page in bytes.
+	 */
+	public PageCache(long budget, String policyName, int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be positive.");
+		}
+		
+		this.pool = new ConcurrentBufferpool(budget, policyName);
+		this.pageSize = pageSize;
+	}
+	
+	public int getPageSize() {
+		return pageSize;
+	}
+	
+	/**
+	 * Fetches a page, reading it from its source if it isn't cached.
+	 * The last page of the source is shorter than the rest.
+	 *
+	 * @param source: the database file, or other source, the page belongs to.
+	 * @param page: the page number.
+	 * @return: the page's content.
+	 * @throws IOException
+	 */
+	private String getPage(Source source, long page) throws IOException {
+		String content = pool.getElem(page);
+		
+		if (content == null) {
+			byte[] buffer = new byte[pageSize];
+			int length = source.readBlock(page * pageSize, buffer);
+			
+			content = new String(buffer, 0, length, StandardCharsets.ISO_8859_1);
+			pool.insertElem(content, page);
+		}
+		
+		return content;
+	}
+	
+	/**
+	 * Fetches the record starting at an offset. A record running past the end of its page
+	 * is continued from the next one.
+	 *
+	 * @param dbFile: the database file the record belongs to.
+	 * @param offset: the offset where the record is located.
+	 * @return: the record without its line break, or null if the offset is past the end of the file.
+	 * @throws IOException
+	 */
+	public String getRecord(Source dbFile, long offset) throws IOException {
+		long page = offset / pageSize;
+		int from = (int) (offset % pageSize);
+		StringBuilder record = null;
+		
+		while (true) {
+			String content = getPage(dbFile, page);
+			int end = content.indexOf('\n', from);
+			
+			// A short page is the last one, the file may end without a line break.
+			if (end < 0 && content.length() < pageSize) {
+				end = content.length();
+				
+				if (from >= end && record == null) {
+					return null;
+				}
+			}
+			
+			if (end >= 0) {
+				String rest = content.substring(from, end);
+				return record == null ? rest : record.append(rest).toString();
+			}
+			
+			if (record == null) {
+				record = new StringBuilder();
+			}
+			
+			record.append(content, from, content.length());
+			page++;
+			from = 0;
+		}
+	}
+	
+	/**
+	 * Fetches a range of bytes, one char per byte, continuing into the next pages if it runs
+	 * past the end of its first. The range comes back short if it runs past the end of its source.
+	 *
+	 * @param source: the file the range belongs to.
+	 * @param position: the offset of the range's first byte.
+	 * @param length: the number of bytes in the range.
+	 * @return: the range's bytes.
+	 * @throws IOException
+	 */
+	public String getRange(Source source, long position, int length) throws IOException {
+		long page = position / pageSize;
+		int from = (int) (position % pageSize);
+		String content = getPage(source, page);
+		
+		if (from + length <= content.length()) {
+			return content.substring(from, from + length);
+		}
+		
+		StringBuilder range = new StringBuilder(length);
+		
+		while (true) {
+			int to = Math.min(content.length(), from + length - range.length());
+			
+			if (from < to) {
+				range.append(content, from, to);
+			}
+			
+			// A short page is the last one.
+			if (range.length() == length || content.length() < pageSize) {
+				return range.toString();
+			}
+			
+			content = getPage(source, ++page);
+			from = 0;
+		}
+	}
+	
+	/**
+	 * Drops the cached page holding an offset, to be called after appending at that offset.
+	 * The page used to end there and is now stale, pages past it weren't cached since
+	 * they didn't exist yet.
+	 *
+	 * @param offset: the old end of the db file.
+	 */
+	public void invalidate(long offset) {
+		pool.removeElem(offset / pageSize);
+	}
+	
+	/**
+	 * Displays the current content of the cache.
+	 *
+	 * @param fw: FileWriter object that will write to our log.
+	 * @throws IOException: throws an exception if the file isn't found.
+	 */
+	public void display(FileWriter fw) throws IOException {
+		fw.write("Page size: " + pageSize + " bytes\n");
+		pool.display(fw);
+	}
+
+}
@@ -0,0 +1,20 @@
+package com.GIS.databaseModel;
+
+import java.io.IOException;
+
+/**
+ * Receives records one at a time, as a query fetches them, projected to the columns it asked for.
+ * 
+ * @author Mansour Najah
+ */
+public interface RecordHandler {
+	
+	/**
+	 * Handles a single fetched record.
+	 * 
+	 * @param offset: the offset of the record in our db file.
+	 * @param feature: the record's columns.
+	 * @throws IOException
+	 */
+	public void accept(long offset, Feature feature) throws IOException;
+}
@@ -0,0 +1,157 @@
+package com.GIS.databaseModel;
+
+import java.io.FileWriter;
+import java.io.IOException;
+
+import com.GIS.databaseModel.Bufferpool.Node;
+
+/**
+ * W-TinyLFU eviction, simplified to a window LRU in front of a main LRU (no segmented
+ * main queue). New records enter the window, which holds 1% of the budget. When the
+ * window overflows its oldest record has to win a place in the main queue: it's admitted
+ * only if it has been asked for more often than the main queue's own LRU victim, going by
+ * a small frequency sketch that counts every lookup, hit or miss. One-off records from a
+ * region scan lose that contest and are dropped straight from the window.
+ * 
+ * @author Mansour Najah
+ */
+public class TinyLfuPolicy implements EvictionPolicy {
+	
+	// Share of the budget kept for the window.
+	private static final double WINDOW_SHARE = 0.01;
+	
+	private final long windowBudget;
+	private final long mainBudget;
+	
+	private final NodeList window = new NodeList();
+	private final NodeList main = new NodeList();
+	private final FrequencySketch sketch = new FrequencySketch();
+	
+	/**
+	 * Creates a W-TinyLFU policy for a pool with the given budget.
+	 * 
+	 * @param budget: the byte budget of the pool.
+	 */
+	public TinyLfuPolicy(long budget) {
+		windowBudget = (long) (budget * WINDOW_SHARE);
+		mainBudget = budget - windowBudget;
+	}
+	
+	@Override
+	public String getName() {
+		return "W-TinyLFU";
+	}
+	
+	@Override
+	public void onHit(Node node) {
+		sketch.increment(node.key);
+		(node.queue == Node.MAIN ? main : window).moveToFront(node);
+	}
+	
+	@Override
+	public void onMiss(long key) {
+		sketch.increment(key);
+	}
+	
+	@Override
+	public void onInsert(Node node) {
+		node.queue = Node.IN;
+		window.addFirst(node);
+	}
+	
+	@Override
+	public void remove(Node node) {
+		(node.queue == Node.MAIN ? main : window).unlink(node);
+	}
+	
+	@Override
+	public Node evict() {
+		while (window.bytes() > windowBudget) {
+			Node candidate = window.removeLast();
+			
+			// Free room in the main queue, the candidate moves in without a contest.
+			if (main.isEmpty() || main.bytes() + candidate.weight <= mainBudget) {
+				candidate.queue = Node.MAIN;
+				main.addFirst(candidate);
+				continue;
+			}
+			
+			Node victim = main.tail();
+			
+			if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+				main.unlink(victim);
+				candidate.queue = Node.MAIN;
+				main.addFirst(candidate);
+				return victim;
+			}
+			
+			return candidate;
+		}
+		
+		return main.isEmpty() ? window.removeLast() : main.removeLast();
+	}
+	
+	@Override
+	public void display(FileWriter fw) throws IOException {
+		fw.write("Window MRU\n");
+		window.display(fw);
+		fw.write("Window LRU\n");
+		fw.write("Main MRU\n");
+		main.display(fw);
+		fw.write("Main LRU");
+	}
+	
+	/**
+	 * Count-min sketch of 4-bit counters, four rows, used to estimate how often each key
+	 * was asked for. Once enough increments have been counted every counter is halved, so
+	 * old popularity fades.
+	 */
+	static class FrequencySketch {
+		private static final int ROWS = 4;
+		private static final int WIDTH = 1 << 12;
+		private static final int MAX_COUNT = 15;
+		private static final int SAMPLE_SIZE = 10 * WIDTH;
+		
+		private final byte[] counters = new byte[ROWS * WIDTH];
+		private int additions;
+		
+		/**
+		 * Returns the counter index of a key within a row.
+		 */
+		private static int index(long key, int row) {
+			long h = (key + row) * 0x9E3779B97F4A7C15L;
+			h ^= h >>> 29;
+			h *= 0xBF58476D1CE4E5B9L;
+			h ^= h >>> 32;
+			
+			return row * WIDTH + (int) (h & (WIDTH - 1));
+		}
+		
+		void increment(long key) {
+			for (int row = 0; row < ROWS; row++) {
+				int idx = index(key, row);
+				
+				if (counters[idx] < MAX_COUNT) {
+					counters[idx]++;
+				}
+			}
+			
+			if (++additions == SAMPLE_SIZE) {
+				for (int i = 0; i < counters.length; i++) {
+					counters[i] >>= 1;
+				}
+				additions /= 2;
+			}
+		}
+		
+		int frequency(long key) {
+			int min = MAX_COUNT;
+			
+			for (int row = 0; row < ROWS; row++) {
+				min = Math.min(min, counters[index(key, row)]);
+			}
+			
+			return min;
+		}
+	}
+}
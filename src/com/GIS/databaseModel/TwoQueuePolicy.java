@@ -0,0 +1,110 @@
+package com.GIS.databaseModel;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+import com.GIS.databaseModel.Bufferpool.Node;
+
+/**
+ * 2Q eviction (Johnson and Shasha). New records enter a FIFO queue, A1in, that holds a
+ * quarter of the budget. Keys evicted from A1in are remembered, without their records, in
+ * a ghost queue, A1out. A record that's fetched again while its key is in A1out has proven
+ * itself and goes to the main LRU queue, Am. Records touched only once, like those of a
+ * big region scan, pass through A1in without disturbing Am.
+ * 
+ * @author Mansour Najah
+ */
+public class TwoQueuePolicy implements EvictionPolicy {
+	
+	// Share of the budget kept for A1in.
+	private static final double IN_SHARE = 0.25;
+	// Fewest keys A1out remembers.
+	private static final int MIN_GHOSTS = 16;
+	
+	private final long inBudget;
+	
+	private final NodeList in = new NodeList();
+	private final NodeList main = new NodeList();
+	private final LinkedHashSet<Long> ghosts = new LinkedHashSet<>();
+	
+	/**
+	 * Creates a 2Q policy for a pool with the given budget.
+	 * 
+	 * @param budget: the byte budget of the pool.
+	 */
+	public TwoQueuePolicy(long budget) {
+		inBudget = (long) (budget * IN_SHARE);
+	}
+	
+	@Override
+	public String getName() {
+		return "2Q";
+	}
+	
+	@Override
+	public void onHit(Node node) {
+		// A1in is FIFO, so only hits in Am reorder anything.
+		if (node.queue == Node.MAIN) {
+			main.moveToFront(node);
+		}
+	}
+	
+	@Override
+	public void onMiss(long key) {
+	}
+	
+	@Override
+	public void onInsert(Node node) {
+		if (ghosts.remove(node.key)) {
+			node.queue = Node.MAIN;
+			main.addFirst(node);
+		} else {
+			node.queue = Node.IN;
+			in.addFirst(node);
+		}
+	}
+	
+	@Override
+	public void remove(Node node) {
+		(node.queue == Node.MAIN ? main : in).unlink(node);
+	}
+	
+	@Override
+	public Node evict() {
+		if (main.isEmpty() || (!in.isEmpty() && in.bytes() > inBudget)) {
+			Node victim = in.removeLast();
+			remember(victim.key);
+			return victim;
+		}
+		
+		return main.removeLast();
+	}
+	
+	/**
+	 * Adds a key to A1out, forgetting the oldest ghost if A1out is full. A1out remembers
+	 * about as many keys as the pool holds records.
+	 */
+	private void remember(long key) {
+		ghosts.add(key);
+		
+		int limit = Math.max(MIN_GHOSTS, in.size() + main.size());
+		
+		for (Iterator<Long> it = ghosts.iterator(); ghosts.size() > limit; ) {
+			it.next();
+			it.remove();
+		}
+	}
+	
+	@Override
+	public void display(FileWriter fw) throws IOException {
+		fw.write("Am MRU\n");
+		main.display(fw);
+		fw.write("Am LRU\n");
+		fw.write("A1in newest\n");
+		in.display(fw);
+		fw.write("A1in oldest\n");
+		fw.write("A1out: " + ghosts.size() + " remembered keys");
+	}
+}
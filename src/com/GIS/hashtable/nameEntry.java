@@ -1,46 +1,86 @@
 package com.GIS.hashtable;
-import java.util.ArrayList;
+import java.util.Objects;
+
+import com.GIS.util.OffsetList;
+import com.GIS.util.StringDictionary;
 
 /**
  * Represents an entry to be used in our hashtable to store feature names and their offsets.
+ * Its key is "name|state". The state is kept apart from the name, so entries of the same state
+ * can share one interned String instead of each holding a copy of it in their key.
  * @author Mansour Najah
  */
 public class nameEntry implements Hashable<nameEntry> {
-	String key; // GIS feature name
-	private ArrayList<Long> locations; // file offsets of matching records
+	String name; // GIS feature name
+	String state; // its state abbreviation, null if the key has none
+	private OffsetList locations; // file offsets of matching records, unboxed
 
 	/**
-	 * Initialize a new nameEntry object with the given feature name and a single
+	 * Initialize a new nameEntry object with the given "name|state" key and a single
 	 * file offset.
 	 */
-	public nameEntry(String name, Long offset) {
-		key = name;
-		setLocations(new ArrayList<Long>());
+	public nameEntry(String key, long offset) {
+		int bar = key.lastIndexOf('|');
+		name = bar < 0 ? key : key.substring(0, bar);
+		state = bar < 0 ? null : key.substring(bar + 1);
+		setLocations(new OffsetList());
 		getLocations().add(offset);
 	}
 
 	/**
-	 * Return feature name.
+	 * Initialize a new nameEntry object with the given feature name, state and a single
+	 * file offset.
+	 */
+	public nameEntry(String name, String state, long offset) {
+		this.name = name;
+		this.state = state;
+		setLocations(new OffsetList());
+		getLocations().add(offset);
+	}
+
+	/**
+	 * Return feature name and state, as "name|state".
 	 */
 	public String key() {
-		return key;
+		return state == null ? name : name + "|" + state;
+	}
+
+	/**
+	 * Return feature name.
+	 */
+	public String name() {
+		return name;
+	}
+
+	/**
+	 * Return state abbreviation, or null if the key has none.
+	 */
+	public String state() {
+		return state;
+	}
+
+	/**
+	 * Replace our state with the copy a dictionary shares among every entry of that state.
+	 */
+	public void internState(StringDictionary states) {
+		if (state != null) {
+			state = states.intern(state);
+		}
 	}
 
 	/**
 	 * Return list of file offsets.
 	 */
-	public ArrayList<Long> locations() {
+	public OffsetList locations() {
 		return getLocations();
 	}
 
 	/**
-	 * Append a file offset to the existing list.
+	 * Append a file offset to the existing list, unless it's already there.
+	 * Offsets usually arrive in increasing order, which makes this O(1).
 	 */
-	public boolean addLocation(Long offset) {
-		if (!getLocations().contains(offset)) {
-			return getLocations().add(offset);
-		}
-		return false;
+	public boolean addLocation(long offset) {
+		return getLocations().add(offset);
 	}
 
 	/** Fowler/Noll/Vo hash function is mandatory for this assignment. **/
@@ -49,14 +89,29 @@ public class nameEntry implements Hashable<nameEntry> {
 		final int fnvBasis = 0x811c9dc5; // hash algorithm
 		int hashValue = fnvBasis;
 
-		for (int i = 0; i < key.length(); i++) {
-			hashValue ^= key.charAt(i);
+		// Hashed as the "name|state" key, without building it.
+		for (int i = 0; i < name.length(); i++) {
+			hashValue ^= name.charAt(i);
 			hashValue *= fnvPrime;
 		}
 
+		if (state != null) {
+			hashValue ^= '|';
+			hashValue *= fnvPrime;
+
+			for (int i = 0; i < state.length(); i++) {
+				hashValue ^= state.charAt(i);
+				hashValue *= fnvPrime;
+			}
+		}
+
 		return Math.abs(hashValue);
 	}
 
+	public int hashCode() {
+		return Hash();
+	}
+
 	/**
 	 * Two nameEntry objects are considered equal iff they hold the same feature
 	 * name.
@@ -66,7 +121,8 @@ public class nameEntry implements Hashable<nameEntry> {
 			return false;
 		}
 		
-		return (this.key().equals(((nameEntry) other).key())); 
+		nameEntry entry = (nameEntry) other;
+		return name.equals(entry.name) && Objects.equals(state, entry.state);
 	}
 
 	/**
@@ -74,14 +130,14 @@ public class nameEntry implements Hashable<nameEntry> {
 	 * for this assignment.
 	 */
 	public String toString() {
-		return ("[" + this.key + ", " + this.getLocations().toString() + "]");
+		return ("[" + this.key() + ", " + this.getLocations().toString() + "]");
 	}
 
-	public ArrayList<Long> getLocations() {
+	public OffsetList getLocations() {
 		return locations;
 	}
 
-	public void setLocations(ArrayList<Long> locations) {
+	public void setLocations(OffsetList locations) {
 		this.locations = locations;
 	}
 }
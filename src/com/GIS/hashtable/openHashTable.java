@@ -0,0 +1,227 @@
+package com.GIS.hashtable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * A hash table implementation using open addressing with linear probing to resolve
+ * collisions. Elements live in one flat array with each element's hash cached in a
+ * parallel int array, so most probes are settled by comparing hashes instead of
+ * calling equals(), and there are no chain nodes to pay for.
+ * @author Mansour Najah
+ *
+ * @param <T>: a generic type.
+ */
+public class openHashTable<T extends Hashable<T>> {
+
+	private Object[] elements; // physical basis for the hash table, null marks an empty slot
+	private int[] hashes; // cached Hash() of the element in the same slot
+	private int numElements = 0; // number of elements in the table
+	private double loadLimit = 0.7; // table resize trigger
+	private static final int defaultTableSize = 256; // default number of table slots
+	private int maxProbeLength = 0; // longest distance from an element's home slot
+
+	/**
+	 * Constructs an empty hash table with the following properties: Pre: - size is
+	 * the user's desired number of slots; null for default - ldLimit is user's
+	 * desired load factor limit for resizing the table; null for the default Post:
+	 * - the table has size slots rounded up to a power of two, 256 slots if size ==
+	 * null - loadLimit is set to default (0.7) if ldLimit == null
+	 */
+	public openHashTable(Integer size, Double ldLimit) {
+		int slots = Integer.highestOneBit(Math.max(size != null ? size : defaultTableSize, 2) - 1) << 1;
+
+		if (ldLimit != null) {
+			loadLimit = ldLimit;
+		}
+
+		elements = new Object[slots];
+		hashes = new int[slots];
+	}
+
+	/**
+	 * Returns the slot holding an element equal to elem, or the empty slot where it
+	 * belongs if there is none.
+	 * @param elem: the element we're looking for.
+	 * @param hash: elem's hash.
+	 * @return: the slot index.
+	 */
+	private int probe(T elem, int hash) {
+		int mask = elements.length - 1;
+		int slot = hash & mask;
+
+		while (elements[slot] != null) {
+			if (hashes[slot] == hash && elements[slot].equals(elem)) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return slot;
+	}
+
+	/**
+	 * Places elem in the first empty slot from its home slot onward. Pre: - elem is
+	 * not already in the table.
+	 */
+	private void place(Object elem, int hash) {
+		int mask = elements.length - 1;
+		int home = hash & mask;
+		int slot = home;
+
+		while (elements[slot] != null) {
+			slot = (slot + 1) & mask;
+		}
+
+		elements[slot] = elem;
+		hashes[slot] = hash;
+
+		int distance = (slot - home) & mask;
+
+		if (distance > maxProbeLength) {
+			maxProbeLength = distance;
+		}
+	}
+
+	/**
+	 * A function to resize our table. Entries are moved over with their cached hashes,
+	 * there's no need to check them for duplicates again.
+	 */
+	public void reallocate() {
+		Object[] oldElements = elements;
+		int[] oldHashes = hashes;
+
+		// Double size.
+		elements = new Object[oldElements.length * 2];
+		hashes = new int[oldElements.length * 2];
+		maxProbeLength = 0;
+
+		for (int i = 0; i < oldElements.length; i++) {
+			if (oldElements[i] != null) {
+				place(oldElements[i], oldHashes[i]);
+			}
+		}
+	}
+
+	/**
+	 * Get current table load, used to check against the load limit.
+	 * @return: current table load.
+	 */
+	public double getLoad() {
+		return (double) numElements / (double) elements.length;
+	}
+
+	/**
+	 * Inserts elem unless the table already contains a matching element (according
+	 * to the equals() method for the user's data type). Pre: - elem is a valid user
+	 * data object Post: - elem is inserted unless it is a duplicate - if the
+	 * resulting load factor exceeds the load limit, the table is rehashed with the
+	 * size doubled Returns: true iff elem has been inserted
+	 */
+	public boolean insert(T elem) {
+		return findOrInsert(elem) == elem;
+	}
+
+	/**
+	 * Returns the element in the table that matches elem (according to the equals()
+	 * method for the user's data type), inserting elem first if there is none. Pre: -
+	 * elem is a valid user data object Post: - elem is inserted unless it is a
+	 * duplicate - if the resulting load factor exceeds the load limit, the table is
+	 * rehashed with the size doubled Returns: the matching element, which is elem
+	 * itself iff it has been inserted
+	 */
+	@SuppressWarnings("unchecked")
+	public T findOrInsert(T elem) {
+		int hash = elem.Hash();
+		int slot = probe(elem, hash);
+
+		if (elements[slot] != null) {
+			return (T) elements[slot];
+		}
+
+		place(elem, hash);
+		numElements++;
+
+		if (getLoad() > loadLimit) {
+			reallocate();
+		}
+
+		return elem;
+	}
+
+	/**
+	 * Searches the table for an element that matches elem (according to the
+	 * equals() method for the user's data type). Pre: - elem is a valid user data
+	 * object Returns: reference to the matching element; null if no match is found
+	 */
+	@SuppressWarnings("unchecked")
+	public T find(T elem) {
+		return (T) elements[probe(elem, elem.Hash())];
+	}
+
+	/**
+	 * Returns the number of elements in the table.
+	 */
+	public int size() {
+		return numElements;
+	}
+
+	/**
+	 * Returns the load factor past which the table is resized.
+	 */
+	public double getLoadLimit() {
+		return loadLimit;
+	}
+
+	/**
+	 * Returns the number of slots in the table.
+	 */
+	public int capacity() {
+		return elements.length;
+	}
+
+	/**
+	 * Performs action on every element of the table. Elements come in slot order,
+	 * starting just past an empty slot, so each one comes after every element it
+	 * was probed past. Inserting them in this order into an empty table with the
+	 * same number of slots puts every element back into the same slot.
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(Consumer<? super T> action) {
+		int mask = elements.length - 1;
+		int start = 0;
+
+		while (start < elements.length && elements[start] != null) {
+			start++;
+		}
+
+		for (int i = 1; i <= elements.length; i++) {
+			int slot = (start + i) & mask;
+
+			if (elements[slot] != null) {
+				action.accept((T) elements[slot]);
+			}
+		}
+	}
+
+	/**
+	 * Writes a formatted display of the hash table contents, in the same layout as
+	 * hashTable. Each slot holds at most one element, so the longest probe sequence
+	 * is reported in place of the longest chain. Pre: - fw is open on an output file
+	 */
+	public void display(FileWriter fw) throws IOException {
+		fw.write("Number of elements: " + numElements + "\n");
+		fw.write("Number of slots: " + elements.length + "\n");
+		fw.write("Longest probe sequence: " + maxProbeLength + "\n");
+		fw.write("Load limit: " + loadLimit + "\n");
+		fw.write("\n");
+
+		fw.write("Slot Contents\n");
+		for (int idx = 0; idx < elements.length; idx++) {
+			if (elements[idx] != null) {
+				fw.write(String.format("%5d: [%s]\n", idx, elements[idx].toString()));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,169 @@
+package com.GIS.util;
+
+/**
+ * Finds the fields of a delimited record without copying them. Resetting the tokenizer
+ * on a record only records where each field ends, as int offsets into the record; a
+ * field becomes a String only when it's asked for. One tokenizer can be reused for any
+ * number of records.
+ * Unlike String.split(), trailing empty fields are kept.
+ * @author Mansour Najah
+ */
+public class FieldTokenizer {
+
+	private static final int DEFAULT_CAPACITY = 24;
+
+	private final char delimiter;
+
+	private CharSequence record;
+	private int from;
+	private int[] ends = new int[DEFAULT_CAPACITY]; // ends[i] is the index just past field i
+	private int count;
+
+	/**
+	 * Creates a tokenizer for '|' delimited records, like GNIS records.
+	 */
+	public FieldTokenizer() {
+		this('|');
+	}
+
+	/**
+	 * Creates a tokenizer for records delimited by the given character.
+	 *
+	 * @param delimiter: the character between fields.
+	 */
+	public FieldTokenizer(char delimiter) {
+		this.delimiter = delimiter;
+	}
+
+	/**
+	 * Tokenizes a whole record.
+	 *
+	 * @param record: the record.
+	 * @return: this tokenizer.
+	 */
+	public FieldTokenizer reset(CharSequence record) {
+		return reset(record, 0, record.length());
+	}
+
+	/**
+	 * Tokenizes part of a character sequence, such as one record of a page.
+	 *
+	 * @param record: the sequence holding the record.
+	 * @param from: index of the record's first character.
+	 * @param to: index just past the record's last character.
+	 * @return: this tokenizer.
+	 */
+	public FieldTokenizer reset(CharSequence record, int from, int to) {
+		this.record = record;
+		this.from = from;
+		count = 0;
+
+		for (int i = from; i < to; i++) {
+			if (record.charAt(i) == delimiter) {
+				addEnd(i);
+			}
+		}
+
+		addEnd(to);
+
+		return this;
+	}
+
+	/**
+	 * Records where a field ends, making room if need be.
+	 */
+	private void addEnd(int end) {
+		if (count == ends.length) {
+			int[] larger = new int[ends.length * 2];
+			System.arraycopy(ends, 0, larger, 0, count);
+			ends = larger;
+		}
+
+		ends[count++] = end;
+	}
+
+	/**
+	 * Returns the record being tokenized.
+	 */
+	public CharSequence record() {
+		return record;
+	}
+
+	/**
+	 * Returns the number of fields in the record.
+	 */
+	public int fieldCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the index of a field's first character in the record.
+	 *
+	 * @param field: the field's position, starting at 0.
+	 */
+	public int start(int field) {
+		check(field);
+		return field == 0 ? from : ends[field - 1] + 1;
+	}
+
+	/**
+	 * Returns the index just past a field's last character in the record.
+	 *
+	 * @param field: the field's position, starting at 0.
+	 */
+	public int end(int field) {
+		check(field);
+		return ends[field];
+	}
+
+	/**
+	 * Returns the number of characters in a field.
+	 *
+	 * @param field: the field's position, starting at 0.
+	 */
+	public int length(int field) {
+		return end(field) - start(field);
+	}
+
+	/**
+	 * Copies a field out of the record.
+	 *
+	 * @param field: the field's position, starting at 0.
+	 * @return: the field as a String.
+	 */
+	public String field(int field) {
+		return record.subSequence(start(field), end(field)).toString();
+	}
+
+	/**
+	 * Compares a field against a value without copying it.
+	 *
+	 * @param field: the field's position, starting at 0.
+	 * @param value: the value to compare against.
+	 * @return: true iff the field holds exactly that value.
+	 */
+	public boolean fieldEquals(int field, String value) {
+		int start = start(field);
+
+		if (end(field) - start != value.length()) {
+			return false;
+		}
+
+		for (int i = 0; i < value.length(); i++) {
+			if (record.charAt(start + i) != value.charAt(i)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Throws an exception if the record doesn't have the given field.
+	 */
+	private void check(int field) {
+		if (field < 0 || field >= count) {
+			throw new IndexOutOfBoundsException("Field: " + field + ", Fields: " + count);
+		}
+	}
+}
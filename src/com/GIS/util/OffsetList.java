@@ -0,0 +1,157 @@
+package com.GIS.util;
+import java.util.Arrays;
+
+/**
+ * A growable list of file offsets backed by a long array, so offsets are never boxed.
+ * The list is kept sorted and free of duplicates. Imports hand out offsets in
+ * increasing order, which makes the usual add an O(1) amortized append; anything
+ * else falls back to a binary search.
+ * @author Mansour Najah
+ */
+public class OffsetList {
+
+	private static final int DEFAULT_CAPACITY = 2;
+
+	private long[] offsets;
+	private int size;
+
+	/**
+	 * Creates an empty offset list.
+	 */
+	public OffsetList() {
+		offsets = new long[DEFAULT_CAPACITY];
+	}
+
+	/**
+	 * Adds an offset, unless the list already holds it.
+	 *
+	 * @param offset: the offset to be added.
+	 * @return: true iff the offset was added.
+	 */
+	public boolean add(long offset) {
+		// Fast path, the new offset goes at the end.
+		if (size == 0 || offset > offsets[size - 1]) {
+			grow();
+			offsets[size++] = offset;
+			return true;
+		}
+
+		int pos = Arrays.binarySearch(offsets, 0, size, offset);
+
+		if (pos >= 0) {
+			return false;
+		}
+
+		// Shift the larger offsets over to keep the list sorted.
+		pos = -(pos + 1);
+		grow();
+		System.arraycopy(offsets, pos, offsets, pos + 1, size - pos);
+		offsets[pos] = offset;
+		size++;
+
+		return true;
+	}
+
+	/**
+	 * Adds every offset of another list, skipping any this list already holds.
+	 *
+	 * @param other: the offsets to be added.
+	 */
+	public void addAll(OffsetList other) {
+		for (int i = 0; i < other.size; i++) {
+			add(other.offsets[i]);
+		}
+	}
+
+	/**
+	 * Makes room for one more offset.
+	 */
+	private void grow() {
+		if (size == offsets.length) {
+			offsets = Arrays.copyOf(offsets, size * 2);
+		}
+	}
+
+	/**
+	 * Returns the offset at a given position.
+	 *
+	 * @param index: position in the list.
+	 * @return: the offset.
+	 */
+	public long get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+
+		return offsets[index];
+	}
+
+	/**
+	 * Returns true iff the list holds the given offset.
+	 */
+	public boolean contains(long offset) {
+		return Arrays.binarySearch(offsets, 0, size, offset) >= 0;
+	}
+
+	/**
+	 * Returns the number of offsets in the list.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns true iff the list holds no offsets.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns a copy of the offsets, in increasing order.
+	 */
+	public long[] toArray() {
+		return Arrays.copyOf(offsets, size);
+	}
+
+	/**
+	 * Two offset lists are equal iff they hold the same offsets.
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof OffsetList)) {
+			return false;
+		}
+
+		OffsetList list = (OffsetList) other;
+		return Arrays.equals(offsets, 0, size, list.offsets, 0, list.size);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = 1;
+
+		for (int i = 0; i < size; i++) {
+			result = 31 * result + Long.hashCode(offsets[i]);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Formats the offsets the same way an ArrayList would, e.g. [265, 6142].
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append(offsets[i]);
+		}
+
+		return sb.append(']').toString();
+	}
+}
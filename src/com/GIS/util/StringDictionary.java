@@ -0,0 +1,83 @@
+package com.GIS.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps each distinct value of a low-cardinality column, like a state or county, to a code, in
+ * the order values were first seen. Also interns them, so every holder of a value can share one
+ * String instead of keeping a copy of its own.
+ * Not thread-safe, values are added from a single thread.
+ * @author Mansour Najah
+ */
+public class StringDictionary {
+
+	private final Map<String, Integer> codes = new HashMap<>();
+	private final List<String> values = new ArrayList<>();
+	private long bytes;
+
+	// The last value encoded and its code. Values come grouped, so most lookups are for the same String.
+	private String last;
+	private int lastCode;
+
+	/**
+	 * Returns a value's code, adding the value if it's new.
+	 *
+	 * @param value: the value.
+	 * @return: its code.
+	 */
+	public int encode(String value) {
+		if (value == last) {
+			return lastCode;
+		}
+
+		Integer code = codes.get(value);
+
+		if (code == null) {
+			code = values.size();
+			codes.put(value, code);
+			values.add(value);
+			bytes += value.length();
+		}
+
+		last = value;
+		lastCode = code;
+
+		return code;
+	}
+
+	/**
+	 * Returns the shared copy of a value, adding the value if it's new.
+	 *
+	 * @param value: the value.
+	 * @return: the String every holder of that value shares.
+	 */
+	public String intern(String value) {
+		return values.get(encode(value));
+	}
+
+	/**
+	 * Returns the value of a code.
+	 *
+	 * @param code: the code, from encode.
+	 */
+	public String decode(int code) {
+		return values.get(code);
+	}
+
+	/**
+	 * Returns the number of distinct values.
+	 */
+	public int size() {
+		return values.size();
+	}
+
+	/**
+	 * Returns the number of characters in all distinct values, one byte each in Latin-1.
+	 */
+	public long bytes() {
+		return bytes;
+	}
+}
@@ -44,4 +44,7 @@ public interface Compare2D<T> {
    // Returns true iff the user data object lies within or on the boundaries
    // of the rectangle specified by the parameters.
    public boolean   inBox(double xLo, double xHi, double yLo, double yHi);
+   
+   // As above, for a rectangle given in whole seconds.
+   public boolean   inBox(long xLo, long xHi, long yLo, long yHi);
 }
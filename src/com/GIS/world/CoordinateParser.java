@@ -1,10 +1,40 @@
 package com.GIS.world;
 /**
  * Skeleton class containing parsing methods used by GISCommandParser.
+ * Coordinates come in DMS form, degrees then two digits each of minutes and seconds then a
+ * hemisphere letter, like 382812N or 0793156W. They're read straight off their characters,
+ * nothing is copied out first.
  * @author Mansour Najah
  */
 public class CoordinateParser {
 	
+	// Total seconds standing in for an unknown coordinate, outside any world.
+	public static final int UNKNOWN = 181 * 3600;
+	
+	// Packed form of an unknown coordinate, see pack.
+	public static final int UNKNOWN_PACKED = -1;
+	
+	private static final String HEMISPHERES = "NSEW";
+	private static final String[] HEMISPHERE_NAMES = {"North", "South", "East", "West"};
+	
+	private static final String NOT_GIVEN = "Coordinate is not given";
+	
+	// Rendered pieces of every coordinate, so rendering is just concatenating four of them.
+	private static final String[] DEGREES = new String[181];
+	private static final String[] MINUTES = new String[60];
+	private static final String[] SECONDS = new String[60];
+	
+	static {
+		for (int d = 0; d < DEGREES.length; d++) {
+			DEGREES[d] = (d < 10 ? "0" : "") + d + "d ";
+		}
+		
+		for (int m = 0; m < MINUTES.length; m++) {
+			MINUTES[m] = m + "m ";
+			SECONDS[m] = m + "s ";
+		}
+	}
+	
 	/**
 	 * Empty constructor, we just want to use the static methods.
 	 */
@@ -13,85 +43,195 @@ public class CoordinateParser {
 	}
 	
 	/**
-	 * Parses string into DMS format for latitude.
-	 * @param latitude the string to be parsed
-	 * @return a formatted string in DMS
+	 * Converts a DMS coordinate into signed total seconds, North and East positive.
+	 * @param dms the coordinate, null or "Unknown" if it isn't known
+	 * @return total seconds, UNKNOWN if the coordinate isn't known
 	 */
-	public static String parseLatitude(String latitude) {
-		if (latitude.length() == 0 || latitude.equals("Unknown")) {
-			return "Coordinate is not given";
+	public static int toSeconds(String dms) {
+		if (dms == null) {
+			return UNKNOWN;
+		}
+		
+		return toSeconds(dms, 0, dms.length());
+	}
+	
+	/**
+	 * Converts the DMS coordinate between start and end into signed total seconds, North and East positive.
+	 * @param dms sequence holding the coordinate
+	 * @param start index of its first character
+	 * @param end index just past its hemisphere letter
+	 * @return total seconds, UNKNOWN if the coordinate is empty or "Unknown"
+	 */
+	public static int toSeconds(CharSequence dms, int start, int end) {
+		if (isUnknown(dms, start, end)) {
+			return UNKNOWN;
+		}
+		
+		int seconds = digits(dms, start, end - 5) * 3600
+				+ digits(dms, end - 5, end - 3) * 60
+				+ digits(dms, end - 3, end - 1);
+		
+		switch (dms.charAt(end - 1)) {
+		case 'N':
+		case 'E':
+			return seconds;
+		case 'S':
+		case 'W':
+			return -seconds;
+		default:
+			throw new NumberFormatException("Not a DMS coordinate: " + dms.subSequence(start, end));
+		}
+	}
+	
+	/**
+	 * Packs the DMS coordinate between start and end into an int: its degrees, minutes and seconds
+	 * as written, then two bits for its hemisphere. Unlike total seconds it keeps everything render
+	 * needs, so a packed coordinate renders just like the characters it came from.
+	 * @param dms sequence holding the coordinate
+	 * @param start index of its first character
+	 * @param end index just past its hemisphere letter
+	 * @return the packed coordinate, UNKNOWN_PACKED if the coordinate is empty or "Unknown"
+	 */
+	public static int pack(CharSequence dms, int start, int end) {
+		if (isUnknown(dms, start, end)) {
+			return UNKNOWN_PACKED;
 		}
 		
-		String d = latitude.substring(0, 2);
-		String m;
-		String s;
-		String h = "";
+		int degrees = digits(dms, start, end - 5);
+		int hemisphere = HEMISPHERES.indexOf(dms.charAt(end - 1));
 		
-		// 1
-		if (latitude.charAt(2) == '0') {
-			m = String.valueOf(latitude.charAt(3));
-		} else {
-			m = latitude.substring(2, 4);
+		if (degrees > 9999 || hemisphere < 0) {
+			throw new NumberFormatException("Not a DMS coordinate: " + dms.subSequence(start, end));
 		}
 		
-		// 2
-		if (latitude.charAt(4) == '0') {
-			s = String.valueOf(latitude.charAt(5));
-		} else {
-			s = latitude.substring(4, 6);
+		return (((degrees * 100 + digits(dms, end - 5, end - 3)) * 100 + digits(dms, end - 3, end - 1)) << 2) | hemisphere;
+	}
+	
+	/**
+	 * Formats a packed coordinate, the same way render formats the characters it was packed from.
+	 * @param packed the coordinate, see pack
+	 * @return a formatted string in DMS
+	 */
+	public static String render(int packed) {
+		if (packed < 0) {
+			return NOT_GIVEN;
+		}
+		
+		int value = packed >>> 2;
+		
+		return piece(DEGREES, value / 10000, "d ")
+				+ piece(MINUTES, value / 100 % 100, "m ")
+				+ piece(SECONDS, value % 100, "s ")
+				+ HEMISPHERE_NAMES[packed & 3];
+	}
+	
+	/**
+	 * Parses string into DMS format for latitude.
+	 * @param latitude the string to be parsed
+	 * @return a formatted string in DMS
+	 */
+	public static String parseLatitude(String latitude) {
+		return render(latitude, 0, latitude.length());
+	}
+	
+	/**
+	 * Parses string into DMS format for longitude.
+	 * @param longitude the string to be parsed
+	 * @return a formatted string in DMS
+	 */
+	public static String parseLongitude(String longitude) {
+		return render(longitude, 0, longitude.length());
+	}
+	
+	/**
+	 * Formats the DMS coordinate between start and end, like 38d 28m 12s North.
+	 * Minutes and seconds lose their leading zero, degrees keep at least two digits.
+	 * @param dms sequence holding the coordinate
+	 * @param start index of its first character
+	 * @param end index just past its hemisphere letter
+	 * @return a formatted string in DMS
+	 */
+	public static String render(CharSequence dms, int start, int end) {
+		if (isUnknown(dms, start, end)) {
+			return NOT_GIVEN;
 		}
 		
-		// 1 & 2 ignore the 0 if necessary.
+		String hemisphere;
 		
-		switch(latitude.charAt(6)) {
+		switch (dms.charAt(end - 1)) {
 		case 'N':
-			h = "North";
+			hemisphere = "North";
 			break;
 		case 'S':
-			h = "South";
+			hemisphere = "South";
+			break;
+		case 'E':
+			hemisphere = "East";
+			break;
+		case 'W':
+			hemisphere = "West";
 			break;
+		default:
+			hemisphere = "";
 		}
 		
-		return d + "d " + m + "m " + s + "s " + h;
-	} 
+		return piece(DEGREES, digits(dms, start, end - 5), "d ")
+				+ piece(MINUTES, digits(dms, end - 5, end - 3), "m ")
+				+ piece(SECONDS, digits(dms, end - 3, end - 1), "s ")
+				+ hemisphere;
+	}
 	
 	/**
-	 * Parses string into DMS format for longitude.
-	 * @param latitude the string to be parsed
-	 * @return a formatted string in DMS
+	 * Returns a rendered piece of a coordinate, building it if it's out of the table's range.
 	 */
-	public static String parseLongitude(String longitude) {
-		if (longitude.length() == 0 || longitude.equals("Unknown")) {
-			return "Coordinate is not given";
+	private static String piece(String[] rendered, int value, String unit) {
+		return value < rendered.length ? rendered[value] : value + unit;
+	}
+	
+	/**
+	 * Returns true iff the coordinate is empty or "Unknown".
+	 */
+	private static boolean isUnknown(CharSequence dms, int start, int end) {
+		if (end == start) {
+			return true;
 		}
 		
-		String d = longitude.substring(1, 3);
-		String m;
-		String s;
-		String h = "";
+		String unknown = "Unknown";
 		
-		if (longitude.charAt(3) == '0') {
-			m = String.valueOf(longitude.charAt(4));
-		} else {
-			m = longitude.substring(3, 5);
+		if (end - start != unknown.length()) {
+			return false;
 		}
 		
-		if (longitude.charAt(5) == '0') {
-			s = String.valueOf(longitude.charAt(6));
-		} else {
-			s = longitude.substring(5, 7);
+		for (int i = 0; i < unknown.length(); i++) {
+			if (dms.charAt(start + i) != unknown.charAt(i)) {
+				return false;
+			}
 		}
 		
-		switch(longitude.charAt(7)) {
-		case 'E':
-			h = "East";
-			break;
-		case 'W':
-			h = "West";
-			break;
+		return true;
+	}
+	
+	/**
+	 * Reads the decimal digits between from and to as a number.
+	 */
+	private static int digits(CharSequence dms, int from, int to) {
+		if (from < 0 || from >= to) {
+			throw new NumberFormatException("Not a DMS coordinate: " + dms);
+		}
+		
+		int value = 0;
+		
+		for (int i = from; i < to; i++) {
+			int digit = dms.charAt(i) - '0';
+			
+			if (digit < 0 || digit > 9) {
+				throw new NumberFormatException("Not a DMS coordinate: " + dms);
+			}
+			
+			value = value * 10 + digit;
 		}
 		
-		return d + "d " + m + "m " + s + "s " + h;
+		return value;
 	}
 
 }
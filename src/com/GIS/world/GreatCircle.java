@@ -0,0 +1,85 @@
+package com.GIS.world;
+/**
+ * Great-circle distances for coordinates given as signed integers in total seconds,
+ * x being longitude and y being latitude.
+ * @author Mansour Najah
+ */
+public class GreatCircle {
+	
+	// Mean radius of the Earth, in meters.
+	public static final double EARTH_RADIUS = 6371008.8;
+	
+	private static final double SECONDS_TO_RADIANS = Math.PI / (180.0 * 3600.0);
+	
+	// Seconds of longitude all the way around the globe.
+	private static final long FULL_TURN = 360 * 3600;
+	
+	/**
+	 * Empty constructor, we just want to use the static methods.
+	 */
+	public GreatCircle() {
+		
+	}
+	
+	/**
+	 * Haversine of an angle given in total seconds.
+	 */
+	private static double hav(double seconds) {
+		double s = Math.sin(seconds * SECONDS_TO_RADIANS / 2);
+		return s * s;
+	}
+	
+	/**
+	 * Turns a haversine sum back into a distance.
+	 */
+	private static double toDistance(double h) {
+		return 2 * EARTH_RADIUS * Math.asin(Math.sqrt(Math.min(1.0, Math.max(0.0, h))));
+	}
+	
+	/**
+	 * Distance in meters between two coordinates, using the haversine formula so that
+	 * longitude differences shrink with latitude.
+	 * 
+	 * @param x1: longitude of the first coordinate.
+	 * @param y1: latitude of the first coordinate.
+	 * @param x2: longitude of the second coordinate.
+	 * @param y2: latitude of the second coordinate.
+	 * @return the distance in meters.
+	 */
+	public static double distance(long x1, long y1, long x2, long y2) {
+		double h = hav(y2 - y1) + Math.cos(y1 * SECONDS_TO_RADIANS) * Math.cos(y2 * SECONDS_TO_RADIANS) * hav(x2 - x1);
+		return toDistance(h);
+	}
+	
+	/**
+	 * Lower bound, in meters, on the distance from a coordinate to any point of a region.
+	 * Each haversine term is minimized on its own: the closest latitude, the closest
+	 * longitude and the smallest cosine over the region's latitudes. Longitudes wrap around
+	 * at the antimeridian, so the closest longitude may be the far edge of the region, the
+	 * other way around the globe.
+	 * 
+	 * @param x: longitude of the coordinate.
+	 * @param y: latitude of the coordinate.
+	 * @param xLo: low longitude of the region.
+	 * @param xHi: high longitude of the region.
+	 * @param yLo: low latitude of the region.
+	 * @param yHi: high latitude of the region.
+	 * @return a distance no larger than the distance to any point of the region.
+	 */
+	public static double minDistance(long x, long y, long xLo, long xHi, long yLo, long yHi) {
+		long dx = 0;
+		
+		if (x < xLo) {
+			dx = Math.min(xLo - x, FULL_TURN - (xHi - x));
+		} else if (x > xHi) {
+			dx = Math.min(x - xHi, FULL_TURN - (x - xLo));
+		}
+		
+		long dy = y < yLo ? yLo - y : (y > yHi ? y - yHi : 0);
+		
+		double minCos = Math.min(Math.cos(yLo * SECONDS_TO_RADIANS), Math.cos(yHi * SECONDS_TO_RADIANS));
+		double h = hav(dy) + Math.cos(y * SECONDS_TO_RADIANS) * Math.max(0.0, minCos) * hav(Math.max(0, Math.min(dx, FULL_TURN / 2)));
+		
+		return toDistance(h);
+	}
+}
@@ -3,13 +3,13 @@ package com.GIS.world;
 // Supplies comparison functions specified in the Compare2D interface.
 //
 
-import java.util.ArrayList;
+import com.GIS.util.OffsetList;
 
 public class Point implements Compare2D<Point> {
 
     public long xcoord;
     public long ycoord;
-    private ArrayList<Long> offsetList;
+    private OffsetList offsetList;
     
     public Point() {
        xcoord = 0;
@@ -19,7 +19,7 @@ public class Point implements Compare2D<Point> {
     public Point(long x, long y) {
        xcoord = x;
        ycoord = y;
-       offsetList = new ArrayList<>();
+       offsetList = new OffsetList();
     }
     
     public long getX() {
@@ -42,7 +42,7 @@ public class Point implements Compare2D<Point> {
      * Returns our list offsets.
      * @return: offsetList
      */
-    public ArrayList<Long> getOffsets() {
+    public OffsetList getOffsets() {
     	return offsetList;
     }
     
@@ -113,6 +113,11 @@ public class Point implements Compare2D<Point> {
     	return xcoord >= xLo && xcoord < xHi && ycoord >= yLo && ycoord < yHi;
     }
     
+    // Same as above, for a rectangle given in whole seconds.
+    public boolean   inBox(long xLo, long xHi, long yLo, long yHi) {
+    	return xcoord >= xLo && xcoord < xHi && ycoord >= yLo && ycoord < yHi;
+    }
+    
     public String toString() {
         
        // Do not change...
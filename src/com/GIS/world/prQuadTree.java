@@ -1,8 +1,22 @@
 package com.GIS.world;
 
+import java.io.DataOutput;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
 
 // To support testing, we will make certain elements of the generic.
 //
@@ -16,7 +30,8 @@ public class prQuadTree<T extends Compare2D<? super T>> {
 	}
 
 	public class prQuadLeaf extends prQuadNode {
-		// Use an ArrayList to support a bucketed implementation later.
+		// Holds up to bucketSize elements before the leaf is split, more if
+		// the leaf sits at the depth limit.
 		ArrayList<T> Elements;
 
 		public prQuadLeaf() {
@@ -56,59 +71,80 @@ public class prQuadTree<T extends Compare2D<? super T>> {
 	public prQuadNode root;
 	public long xMin, xMax, yMin, yMax;
 
-	// Add private data members as needed...
+	// Default leaf capacity and depth limit for the classic (unbucketed) tree.
+	public static final int DEFAULT_BUCKET_SIZE = 1;
+	public static final int DEFAULT_MAX_DEPTH = 32;
+
+	// Orders elements by x, then y, so equal elements sort next to each other.
+	private static final Comparator<Compare2D<?>> BY_COORDINATES = (a, b) -> a.getX() != b.getX()
+			? Long.compare(a.getX(), b.getX()) : Long.compare(a.getY(), b.getY());
+
+	// Number of elements a leaf may hold before it is split.
+	private final int bucketSize;
+	// Leaves at this depth are never split, they just keep growing.
+	private final int maxDepth;
 
 	// Initialize quadtree to empty state, representing the specified region.
 	// Pre: xMin < xMax and yMin < yMax
 	public prQuadTree(long xMin, long xMax, long yMin, long yMax) {
+		this(xMin, xMax, yMin, yMax, DEFAULT_BUCKET_SIZE, DEFAULT_MAX_DEPTH);
+	}
+
+	/**
+	 * Initialize a bucketed quadtree to empty state, representing the specified region.
+	 * 
+	 * @param bucketSize: number of elements a leaf holds before it is split (at least 1).
+	 * @param maxDepth:   depth below which leaves are no longer split (at least 1).
+	 */
+	public prQuadTree(long xMin, long xMax, long yMin, long yMax, int bucketSize, int maxDepth) {
+		if (bucketSize < 1 || maxDepth < 1) {
+			throw new IllegalArgumentException("Bucket size and depth limit must be positive.");
+		}
+
 		this.xMin = xMin;
 		this.xMax = xMax;
 		this.yMax = yMax;
 		this.yMin = yMin;
+		this.bucketSize = bucketSize;
+		this.maxDepth = maxDepth;
 	}
 
 	/**
-	 * Helper function for insert and find. Returns an array of doubles bounding the
-	 * desired quadrant.
-	 * 
-	 * @param direction: which direction we're looking in.
-	 * @param xLo:       low x-coordinate.
-	 * @param xHi:       high x-coordinate.
-	 * @param yLo:       low y-coordinate.
-	 * @param yHi:       high y-coordinate.
-	 * @return array of doubles bounding target quadrant.
+	 * Returns the number of elements a leaf holds before it is split.
 	 */
-	private double[] getBounds(Direction direction, double xLo, double xHi, double yLo, double yHi) {
-		double[] bounds = null;
-
-		double xAxis = (yLo + yHi) / 2;
-		double yAxis = (xLo + xHi) / 2;
+	public int getBucketSize() {
+		return bucketSize;
+	}
 
-		switch (direction) {
-		case NE:
-			bounds = new double[] { yAxis, xHi, xAxis, yHi };
-			break;
-		case NW:
-			bounds = new double[] { xLo, yAxis, xAxis, yHi };
-			break;
-		case SE:
-			bounds = new double[] { yAxis, xHi, yLo, xAxis };
-			break;
-		case SW:
-			bounds = new double[] { xLo, yAxis, yLo, xAxis };
-			break;
-		default:
-			break;
-		}
+	/**
+	 * Returns the depth at which leaves stop being split.
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
 
-		return bounds;
+	/**
+	 * Helper function for insert and find. Returns the midpoint of [lo, hi], rounded
+	 * down. Every coordinate is a whole number of seconds, so an integer midpoint splits
+	 * the region exactly as well as a fractional one would.
+	 * 
+	 * @param lo: low coordinate.
+	 * @param hi: high coordinate.
+	 * @return midpoint of the two coordinates.
+	 */
+	private static long midpoint(long lo, long hi) {
+		return lo + (hi - lo) / 2;
 	}
 
 	/**
 	 * Insert helper function.
+	 * 
+	 * Children are bounded by the parent's midpoints: NE [xMid, xHi] x [yMid, yHi],
+	 * NW [xLo, xMid] x [yMid, yHi], SE [xMid, xHi] x [yLo, yMid] and SW [xLo, xMid] x [yLo, yMid].
+	 * Which child an element goes to is decided by directionFrom(xMid, yMid).
 	 */
 	@SuppressWarnings("unchecked")
-	private prQuadNode insertHelper(prQuadNode sRoot, T elem, double xLo, double xHi, double yLo, double yHi) {
+	private prQuadNode insertHelper(prQuadNode sRoot, T elem, long xLo, long xHi, long yLo, long yHi, int depth) {
 
 		// Check if tree is empty
 		if (sRoot == null) {
@@ -120,24 +156,24 @@ public class prQuadTree<T extends Compare2D<? super T>> {
 
 			prQuadInternal node = (prQuadInternal) sRoot;
 
-			// Find the direction of where we should place the node and get the bounds of
-			// that region.
-			Direction quadrant = elem.inQuadrant(xLo, xHi, yLo, yHi);
-			double[] bounds = getBounds(quadrant, xLo, xHi, yLo, yHi);
+			// Find the direction of where we should place the node, relative to the
+			// center of this region.
+			long xMid = midpoint(xLo, xHi);
+			long yMid = midpoint(yLo, yHi);
 
 			// Depending on the direction, we'll insert it in that specific region.
-			switch (quadrant) {
+			switch (elem.directionFrom(xMid, yMid)) {
 			case NE:
-				node.NE = insertHelper(node.NE, elem, bounds[0], bounds[1], bounds[2], bounds[3]);
+				node.NE = insertHelper(node.NE, elem, xMid, xHi, yMid, yHi, depth + 1);
 				break;
 			case NW:
-				node.NW = insertHelper(node.NW, elem, bounds[0], bounds[1], bounds[2], bounds[3]);
+				node.NW = insertHelper(node.NW, elem, xLo, xMid, yMid, yHi, depth + 1);
 				break;
 			case SE:
-				node.SE = insertHelper(node.SE, elem, bounds[0], bounds[1], bounds[2], bounds[3]);
+				node.SE = insertHelper(node.SE, elem, xMid, xHi, yLo, yMid, depth + 1);
 				break;
 			case SW:
-				node.SW = insertHelper(node.SW, elem, bounds[0], bounds[1], bounds[2], bounds[3]);
+				node.SW = insertHelper(node.SW, elem, xLo, xMid, yLo, yMid, depth + 1);
 				break;
 			default:
 				break;
@@ -146,17 +182,25 @@ public class prQuadTree<T extends Compare2D<? super T>> {
 			return node;
 		}
 
-		// Else, we need to create a new internal node and insert the old one as a new
-		// leaf.
-		else {
-			prQuadInternal node = new prQuadInternal();
-			prQuadLeaf leaf = (prQuadTree<T>.prQuadLeaf) sRoot;
+		// Else, we've reached a leaf. If the bucket has room, or we're at the depth
+		// limit, the element just joins the bucket.
+		prQuadLeaf leaf = (prQuadTree<T>.prQuadLeaf) sRoot;
 
-			node = (prQuadInternal) insertHelper(node, leaf.Elements.get(0), xLo, xHi, yLo, yHi);
-			node = (prQuadInternal) insertHelper(node, elem, xLo, xHi, yLo, yHi);
+		if (leaf.Elements.size() < bucketSize || depth >= maxDepth) {
+			leaf.Elements.add(elem);
+			return leaf;
+		}
 
-			return node;
+		// Otherwise the bucket is full, so we need to create a new internal node and
+		// redistribute the old elements along with the new one.
+		prQuadInternal node = new prQuadInternal();
+
+		for (T old : leaf.Elements) {
+			insertHelper(node, old, xLo, xHi, yLo, yHi, depth);
 		}
+		insertHelper(node, elem, xLo, xHi, yLo, yHi, depth);
+
+		return node;
 	}
 
 	// Pre: elem != null
@@ -172,16 +216,355 @@ public class prQuadTree<T extends Compare2D<? super T>> {
 		}
 
 		// Else, we'll insert.
-		this.root = insertHelper(this.root, elem, this.xMin, this.xMax, this.yMin, this.yMax);
+		this.root = insertHelper(this.root, elem, this.xMin, this.xMax, this.yMin, this.yMax, 0);
 
 		return true;
 	}
 
+	// Pre: elem != null
+	// Post: If elem lies within the tree's region and no element equal to it is
+	// present, elem has been inserted into the tree.
+	// Returns the element in the tree that equals elem, which is elem itself if it
+	// was just inserted; returns null if elem lies outside the tree's region.
+	// Unlike find followed by insert, the tree is only walked once.
+	@SuppressWarnings("unchecked")
+	public T findOrInsert(T elem) {
+		if (!elem.inBox(this.xMin, this.xMax, this.yMin, this.yMax)) {
+			return null;
+		}
+
+		prQuadInternal parent = null;
+		Direction quadrant = Direction.NOQUADRANT;
+		prQuadNode node = this.root;
+
+		long xLo = this.xMin, xHi = this.xMax, yLo = this.yMin, yHi = this.yMax;
+		int depth = 0;
+
+		// Walk down to the leaf (or empty child) where elem belongs, remembering its
+		// parent so the leaf can be replaced if it has to split.
+		while (node instanceof prQuadTree.prQuadInternal) {
+			parent = (prQuadInternal) node;
+
+			long xMid = midpoint(xLo, xHi);
+			long yMid = midpoint(yLo, yHi);
+			quadrant = elem.directionFrom(xMid, yMid);
+
+			switch (quadrant) {
+			case NE:
+				node = parent.NE;
+				xLo = xMid;
+				yLo = yMid;
+				break;
+			case NW:
+				node = parent.NW;
+				xHi = xMid;
+				yLo = yMid;
+				break;
+			case SE:
+				node = parent.SE;
+				xLo = xMid;
+				yHi = yMid;
+				break;
+			default:
+				node = parent.SW;
+				xHi = xMid;
+				yHi = yMid;
+				break;
+			}
+
+			depth++;
+		}
+
+		// If there's a match in the bucket, that's our canonical element.
+		if (node != null) {
+			prQuadLeaf leaf = (prQuadTree<T>.prQuadLeaf) node;
+
+			for (T other : leaf.Elements) {
+				if (other.equals(elem)) {
+					return other;
+				}
+			}
+		}
+
+		prQuadNode replacement = insertHelper(node, elem, xLo, xHi, yLo, yHi, depth);
+
+		if (parent == null) {
+			this.root = replacement;
+		} else {
+			switch (quadrant) {
+			case NE:
+				parent.NE = replacement;
+				break;
+			case NW:
+				parent.NW = replacement;
+				break;
+			case SE:
+				parent.SE = replacement;
+				break;
+			default:
+				parent.SW = replacement;
+				break;
+			}
+		}
+
+		return elem;
+	}
+
 	/**
-	 * Helper function for find.
+	 * Returns true iff the tree holds no elements.
+	 */
+	public boolean isEmpty() {
+		return root == null;
+	}
+
+	// Pre: elems != null
+	// Returns the elements of elems that lie within the tree's region, sorted by
+	// coordinates. The sort is stable, so equal elements keep their order. Only the
+	// tree's region is read, so import workers can sort their batches into runs for
+	// bulkLoad while the tree is still empty.
+	public ArrayList<T> sortedRun(List<T> elems) {
+		ArrayList<T> run = new ArrayList<T>(elems.size());
+
+		// Anything outside of the world's boundaries is rejected, like insert does.
+		for (T elem : elems) {
+			if (elem.inBox(this.xMin, this.xMax, this.yMin, this.yMax)) {
+				run.add(elem);
+			}
+		}
+
+		run.sort(BY_COORDINATES);
+
+		return run;
+	}
+
+	// Pre: the tree is empty, elems != null
+	// Post: every element of elems that lies within the tree's region has been
+	// added to the tree. Elements equal to an earlier element are not added;
+	// instead merger is called with (earlier element, duplicate).
+	// Returns the number of elements of elems that lie within the tree's region.
+	public int bulkLoad(List<T> elems, BiConsumer<? super T, ? super T> merger) {
+		return bulkLoad(elems, sortedRun(elems), merger);
+	}
+
+	// Pre: the tree is empty, elems != null, and runs holds the sortedRun of each
+	// of a series of consecutive slices of elems, back to back in the order of elems.
+	// Post: as bulkLoad(elems, merger).
+	// Sorting the runs is left to the caller, so it can be spread over threads; here
+	// they're only merged.
+	public int bulkLoad(List<T> elems, List<T> runs, BiConsumer<? super T, ? super T> merger) {
+		if (root != null) {
+			throw new IllegalStateException("Bulk loading requires an empty tree.");
+		}
+
+		// Merge the runs so equal elements end up next to each other. The sort is stable
+		// and finds the runs already in order, so the first of each group of equal elements
+		// is the earliest and the rest merge into it.
+		ArrayList<T> sorted = new ArrayList<T>(runs);
+		sorted.sort(BY_COORDINATES);
+
+		Set<T> merged = Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+		T canonical = null;
+
+		for (T elem : sorted) {
+			if (canonical != null && canonical.equals(elem)) {
+				merger.accept(canonical, elem);
+				merged.add(elem);
+			} else {
+				canonical = elem;
+			}
+		}
+
+		// The survivors keep their original order, so buckets come out just as they would
+		// from inserting one element at a time.
+		Object[] items = new Object[sorted.size() - merged.size()];
+		int count = 0;
+
+		for (T elem : elems) {
+			if (elem.inBox(this.xMin, this.xMax, this.yMin, this.yMax) && !merged.contains(elem)) {
+				items[count++] = elem;
+			}
+		}
+
+		this.root = buildHelper(items, new Object[count], new byte[count], 0, count, this.xMin, this.xMax, this.yMin,
+				this.yMax, 0);
+
+		return sorted.size();
+	}
+
+	/**
+	 * Bulk load helper. Builds the subtree for items[from, to), all of which lie in the
+	 * given region, in one pass: the range is partitioned by quadrant with a counting
+	 * sort through scratch, then each quadrant is built the same way.
+	 */
+	@SuppressWarnings("unchecked")
+	private prQuadNode buildHelper(Object[] items, Object[] scratch, byte[] quadrants, int from, int to, long xLo,
+			long xHi, long yLo, long yHi, int depth) {
+
+		int count = to - from;
+
+		// Nothing here, leave the child empty.
+		if (count == 0) {
+			return null;
+		}
+
+		// Everything fits in one bucket, or we're at the depth limit.
+		if (count <= bucketSize || depth >= maxDepth) {
+			prQuadLeaf leaf = new prQuadLeaf();
+			leaf.Elements = new ArrayList<T>(count);
+
+			for (int i = from; i < to; i++) {
+				leaf.Elements.add((T) items[i]);
+			}
+
+			return leaf;
+		}
+
+		long xMid = midpoint(xLo, xHi);
+		long yMid = midpoint(yLo, yHi);
+
+		// Count how many elements go to each quadrant, indexed by Direction ordinal.
+		int[] starts = new int[Direction.values().length];
+
+		for (int i = from; i < to; i++) {
+			quadrants[i] = (byte) ((T) items[i]).directionFrom(xMid, yMid).ordinal();
+			starts[quadrants[i]]++;
+		}
+
+		int nwEnd = from + starts[Direction.NW.ordinal()];
+		int swEnd = nwEnd + starts[Direction.SW.ordinal()];
+		int seEnd = swEnd + starts[Direction.SE.ordinal()];
+
+		// Turn the counts into starting positions, then distribute.
+		starts[Direction.NW.ordinal()] = from;
+		starts[Direction.SW.ordinal()] = nwEnd;
+		starts[Direction.SE.ordinal()] = swEnd;
+		starts[Direction.NE.ordinal()] = seEnd;
+
+		for (int i = from; i < to; i++) {
+			scratch[starts[quadrants[i]]++] = items[i];
+		}
+		System.arraycopy(scratch, from, items, from, count);
+
+		prQuadInternal node = new prQuadInternal();
+		node.NW = buildHelper(items, scratch, quadrants, from, nwEnd, xLo, xMid, yMid, yHi, depth + 1);
+		node.SW = buildHelper(items, scratch, quadrants, nwEnd, swEnd, xLo, xMid, yLo, yMid, depth + 1);
+		node.SE = buildHelper(items, scratch, quadrants, swEnd, seEnd, xMid, xHi, yLo, yMid, depth + 1);
+		node.NE = buildHelper(items, scratch, quadrants, seEnd, to, xMid, xHi, yMid, yHi, depth + 1);
+
+		return node;
+	}
+
+	// Writes and reads the elements of a tree for write() and read().
+	public interface ElementCodec<E> {
+		void write(E elem, DataOutput out) throws IOException;
+
+		E read(ByteBuffer in) throws IOException;
+	}
+
+	// Node tags used by write() and read().
+	private static final byte EMPTY = 0, LEAF = 1, INTERNAL = 2;
+
+	// Pre: out != null, codec != null
+	// Post: the tree's nodes have been written to out in preorder, each as a tag
+	// byte. A leaf is followed by its element count and its elements in bucket
+	// order, an internal node by its SW, SE, NE and NW children.
+	// Returns the number of elements written.
+	public int write(DataOutput out, ElementCodec<T> codec) throws IOException {
+		return writeHelper(root, out, codec);
+	}
+
+	/**
+	 * Write helper, writes the subtree rooted at node.
 	 */
 	@SuppressWarnings("unchecked")
-	private T findHelper(T Elem, prQuadNode node, double xLo, double xHi, double yLo, double yHi) {
+	private int writeHelper(prQuadNode node, DataOutput out, ElementCodec<T> codec) throws IOException {
+		if (node == null) {
+			out.writeByte(EMPTY);
+			return 0;
+		}
+
+		if (node.getClass().equals(prQuadLeaf.class)) {
+			prQuadLeaf leaf = (prQuadLeaf) node;
+			out.writeByte(LEAF);
+			out.writeInt(leaf.Elements.size());
+
+			for (T elem : leaf.Elements) {
+				codec.write(elem, out);
+			}
+
+			return leaf.Elements.size();
+		}
+
+		prQuadInternal internal = (prQuadInternal) node;
+		out.writeByte(INTERNAL);
+
+		return writeHelper(internal.SW, out, codec) + writeHelper(internal.SE, out, codec)
+				+ writeHelper(internal.NE, out, codec) + writeHelper(internal.NW, out, codec);
+	}
+
+	// Pre: the tree is empty, in holds nodes written by write() from a tree over
+	// the same region with the same bucket size and depth limit
+	// Post: the tree has exactly the shape and elements of the written tree,
+	// in reads just past its last node
+	// Returns the number of elements read.
+	public int read(ByteBuffer in, ElementCodec<T> codec) throws IOException {
+		if (root != null) {
+			throw new IllegalStateException("Reading requires an empty tree.");
+		}
+
+		int[] count = new int[1];
+		root = readHelper(in, codec, count, 0);
+
+		return count[0];
+	}
+
+	/**
+	 * Read helper, rebuilds the subtree whose nodes come next in the buffer.
+	 */
+	private prQuadNode readHelper(ByteBuffer in, ElementCodec<T> codec, int[] count, int depth) throws IOException {
+		byte tag = in.get();
+
+		if (tag == EMPTY) {
+			return null;
+		}
+
+		if (tag == LEAF) {
+			int size = in.getInt();
+
+			if (size < 1) {
+				throw new IOException("Corrupt quadtree leaf of " + size + " elements.");
+			}
+
+			prQuadLeaf leaf = new prQuadLeaf();
+			leaf.Elements = new ArrayList<T>(size);
+
+			for (int i = 0; i < size; i++) {
+				leaf.Elements.add(codec.read(in));
+			}
+
+			count[0] += size;
+			return leaf;
+		}
+
+		if (tag != INTERNAL || depth >= maxDepth) {
+			throw new IOException("Corrupt quadtree node at depth " + depth + ".");
+		}
+
+		prQuadInternal node = new prQuadInternal();
+		node.SW = readHelper(in, codec, count, depth + 1);
+		node.SE = readHelper(in, codec, count, depth + 1);
+		node.NE = readHelper(in, codec, count, depth + 1);
+		node.NW = readHelper(in, codec, count, depth + 1);
+
+		return node;
+	}
+
+	/**
+	 * Helper function for find. Only primitives are passed down, so a lookup makes
+	 * no heap allocations.
+	 */
+	@SuppressWarnings("unchecked")
+	private T findHelper(T Elem, prQuadNode node, long xLo, long xHi, long yLo, long yHi) {
 
 		// Check if tree is empty, obviously return null.
 		if (node == null) {
@@ -193,61 +576,71 @@ public class prQuadTree<T extends Compare2D<? super T>> {
 			prQuadInternal internalNode = (prQuadInternal) node;
 
 			// Find the quadrant that the element should be in.
-			Direction quadrant = Elem.inQuadrant(xLo, xHi, yLo, yHi);
-			double[] bounds = getBounds(quadrant, xLo, xHi, yLo, yHi);
+			long xMid = midpoint(xLo, xHi);
+			long yMid = midpoint(yLo, yHi);
 
 			// Look in that specific region.
-			switch (quadrant) {
+			switch (Elem.directionFrom(xMid, yMid)) {
 			case NE:
-				return findHelper(Elem, internalNode.NE, bounds[0], bounds[1], bounds[2], bounds[3]);
+				return findHelper(Elem, internalNode.NE, xMid, xHi, yMid, yHi);
 			case NW:
-				return findHelper(Elem, internalNode.NW, bounds[0], bounds[1], bounds[2], bounds[3]);
+				return findHelper(Elem, internalNode.NW, xLo, xMid, yMid, yHi);
 			case SE:
-				return findHelper(Elem, internalNode.SE, bounds[0], bounds[1], bounds[2], bounds[3]);
+				return findHelper(Elem, internalNode.SE, xMid, xHi, yLo, yMid);
 			case SW:
-				return findHelper(Elem, internalNode.SW, bounds[0], bounds[1], bounds[2], bounds[3]);
+				return findHelper(Elem, internalNode.SW, xLo, xMid, yLo, yMid);
 			default:
 				return null;
 			}
 
 		}
 
-		// Else, the node is a leaf and we should return the data element if it's equal
-		// to what we're searching for.
+		// Else, the node is a leaf and we should return the data element in its bucket
+		// that's equal to what we're searching for.
 		else {
 			prQuadLeaf leaf = (prQuadTree<T>.prQuadLeaf) node;
 
-			if (leaf.Elements.get(0).equals(Elem)) {
-				return leaf.Elements.get(0);
-			} else {
-				return null;
+			// Indexed loop, an enhanced for would allocate an iterator.
+			for (int i = 0; i < leaf.Elements.size(); i++) {
+				if (leaf.Elements.get(i).equals(Elem)) {
+					return leaf.Elements.get(i);
+				}
 			}
+
+			return null;
 		}
 	}
 
 	/**
-	 * Checks to see if two regions overlap/intersect.
+	 * Checks to see if a node's region overlaps/intersects a query region. Node regions
+	 * include all of their edges, query regions follow inBox and exclude their high edges.
 	 * 
-	 * @param firstRegionBounds: quadrant bounds of the first region.
-	 * @param secondRegionXLo:   low x-coordinate of the second region.
-	 * @param secondRegionXHi:   high x-coordinate of the second region.
-	 * @param secondRegionYLo:   low y-coordinate of the second region.
-	 * @param secondRegionYHi:   high y-coordinate of the second region.
+	 * @param nodeXLo: low x-coordinate of the node's region.
+	 * @param nodeXHi: high x-coordinate of the node's region.
+	 * @param nodeYLo: low y-coordinate of the node's region.
+	 * @param nodeYHi: high y-coordinate of the node's region.
+	 * @param xLo:     low x-coordinate of the query region.
+	 * @param xHi:     high x-coordinate of the query region.
+	 * @param yLo:     low y-coordinate of the query region.
+	 * @param yHi:     high y-coordinate of the query region.
 	 * @return true if regions overlap, false otherwise.
 	 */
-	private boolean findOverlap(double[] firstRegionBounds, double secondRegionXLo, double secondRegionXHi,
-			double secondRegionYLo, double secondRegionYHi) {
+	private static boolean findOverlap(long nodeXLo, long nodeXHi, long nodeYLo, long nodeYHi,
+			long xLo, long xHi, long yLo, long yHi) {
 
-		double firstRegionHeight = Math.abs(firstRegionBounds[2]) + Math.abs(firstRegionBounds[3]);
-		double firstRegionWidth = Math.abs(firstRegionBounds[0]) + Math.abs(firstRegionBounds[1]);
+		return nodeXLo < xHi && nodeXHi >= xLo && nodeYLo < yHi && nodeYHi >= yLo;
+	}
 
-		double secondRegionHeight = Math.abs(secondRegionYLo) + Math.abs(secondRegionYHi);
-		double secondRegionWidth = Math.abs(secondRegionXLo) + Math.abs(secondRegionXHi);
+	/**
+	 * Checks to see if a node's region lies entirely within a query region, in which
+	 * case every element below the node is a match.
+	 * 
+	 * @return true if the node's region is contained in the query region, false otherwise.
+	 */
+	private static boolean findContained(long nodeXLo, long nodeXHi, long nodeYLo, long nodeYHi,
+			long xLo, long xHi, long yLo, long yHi) {
 
-		return (firstRegionBounds[0] + firstRegionWidth >= secondRegionXLo
-				&& firstRegionBounds[2] + firstRegionHeight >= secondRegionYLo
-				&& firstRegionBounds[0] <= secondRegionXLo + secondRegionWidth
-				&& firstRegionBounds[2] <= secondRegionYLo + secondRegionHeight);
+		return xLo <= nodeXLo && nodeXHi < xHi && yLo <= nodeYLo && nodeYHi < yHi;
 	}
 
 	// Pre: elem != null
@@ -259,16 +652,45 @@ public class prQuadTree<T extends Compare2D<? super T>> {
 	}
 
 	/**
-	 * Void helper for find function.
+	 * Adds every element in the subtree rooted at node to our collection.
+	 */
+	@SuppressWarnings("unchecked")
+	private void collectAll(ArrayList<T> collection, prQuadNode node) {
+		if (node == null) {
+			return;
+		}
+
+		if (node instanceof prQuadTree.prQuadInternal) {
+			prQuadInternal internalNode = (prQuadInternal) node;
+
+			collectAll(collection, internalNode.NE);
+			collectAll(collection, internalNode.NW);
+			collectAll(collection, internalNode.SE);
+			collectAll(collection, internalNode.SW);
+		} else {
+			collection.addAll(((prQuadTree<T>.prQuadLeaf) node).Elements);
+		}
+	}
+
+	/**
+	 * Void helper for find function. The node's own region is passed down alongside
+	 * the query region, so children that miss the query are skipped and subtrees that
+	 * lie inside it are taken whole.
 	 */
 	@SuppressWarnings("unchecked")
-	private void findHelper(ArrayList<T> collection, prQuadNode node, long xLo, long xHi, long yLo, long yHi) {
+	private void findHelper(ArrayList<T> collection, prQuadNode node, long nodeXLo, long nodeXHi, long nodeYLo,
+			long nodeYHi, long xLo, long xHi, long yLo, long yHi) {
 
 		// Check if tree is empty.
 		if (node == null) {
 			return;
 		}
 
+		// If the whole node is inside the query, no element needs checking.
+		else if (findContained(nodeXLo, nodeXHi, nodeYLo, nodeYHi, xLo, xHi, yLo, yHi)) {
+			collectAll(collection, node);
+		}
+
 		// Check if the node is an internal node.
 		else if (node instanceof prQuadTree.prQuadInternal) {
 
@@ -277,38 +699,38 @@ public class prQuadTree<T extends Compare2D<? super T>> {
 			 */
 			prQuadInternal internalNode = (prQuadInternal) node;
 
-			double[] NEBounds = getBounds(Direction.NE, xLo, xHi, yLo, yHi);
-			double[] NWBounds = getBounds(Direction.NW, xLo, xHi, yLo, yHi);
-			double[] SEBounds = getBounds(Direction.SE, xLo, xHi, yLo, yHi);
-			double[] SWBounds = getBounds(Direction.SW, xLo, xHi, yLo, yHi);
+			long xMid = midpoint(nodeXLo, nodeXHi);
+			long yMid = midpoint(nodeYLo, nodeYHi);
 
-			if (findOverlap(NEBounds, xLo, xHi, yLo, yHi)) {
-				findHelper(collection, internalNode.NE, xLo, xHi, yLo, yHi);
+			if (findOverlap(xMid, nodeXHi, yMid, nodeYHi, xLo, xHi, yLo, yHi)) {
+				findHelper(collection, internalNode.NE, xMid, nodeXHi, yMid, nodeYHi, xLo, xHi, yLo, yHi);
 			}
 
-			if (findOverlap(NWBounds, xLo, xHi, yLo, yHi)) {
-				findHelper(collection, internalNode.NW, xLo, xHi, yLo, yHi);
+			if (findOverlap(nodeXLo, xMid, yMid, nodeYHi, xLo, xHi, yLo, yHi)) {
+				findHelper(collection, internalNode.NW, nodeXLo, xMid, yMid, nodeYHi, xLo, xHi, yLo, yHi);
 			}
 
-			if (findOverlap(SEBounds, xLo, xHi, yLo, yHi)) {
-				findHelper(collection, internalNode.SE, xLo, xHi, yLo, yHi);
+			if (findOverlap(xMid, nodeXHi, nodeYLo, yMid, xLo, xHi, yLo, yHi)) {
+				findHelper(collection, internalNode.SE, xMid, nodeXHi, nodeYLo, yMid, xLo, xHi, yLo, yHi);
 			}
 
-			if (findOverlap(SWBounds, xLo, xHi, yLo, yHi)) {
-				findHelper(collection, internalNode.SW, xLo, xHi, yLo, yHi);
+			if (findOverlap(nodeXLo, xMid, nodeYLo, yMid, xLo, xHi, yLo, yHi)) {
+				findHelper(collection, internalNode.SW, nodeXLo, xMid, nodeYLo, yMid, xLo, xHi, yLo, yHi);
 			}
 
 		}
 
 		/**
-		 * Else, we have a leaf node and if its element is in the region, we'll add it
-		 * to our collection.
+		 * Else, we have a leaf node and every element of its bucket that is in the region
+		 * gets added to our collection.
 		 */
 		else {
 			prQuadLeaf leaf = (prQuadTree<T>.prQuadLeaf) node;
 
-			if (leaf.Elements.get(0).inBox(xLo, xHi, yLo, yHi)) {
-				collection.add(leaf.Elements.get(0));
+			for (int i = 0; i < leaf.Elements.size(); i++) {
+				if (leaf.Elements.get(i).inBox(xLo, xHi, yLo, yHi)) {
+					collection.add(leaf.Elements.get(i));
+				}
 			}
 		}
 
@@ -320,10 +742,277 @@ public class prQuadTree<T extends Compare2D<? super T>> {
 	// region, including the boundary of the region.
 	public ArrayList<T> find(long xLo, long xHi, long yLo, long yHi) {
 		ArrayList<T> collection = new ArrayList<T>();
-		findHelper(collection, this.root, xLo, xHi, yLo, yHi);
+		findHelper(collection, this.root, this.xMin, this.xMax, this.yMin, this.yMax, xLo, xHi, yLo, yHi);
+		return collection;
+	}
+
+	// Pre: xLo < xHi and yLo < yHi
+	// Returns an iterator over the same elements as find(xLo, xHi, yLo, yHi).
+	// Matches are produced lazily, so nothing is collected up front and the
+	// caller may stop early.
+	public Iterator<T> findIterator(long xLo, long xHi, long yLo, long yHi) {
+		return new prQuadRangeIterator(xLo, xHi, yLo, yHi);
+	}
+
+	// Pre: xLo < xHi and yLo < yHi
+	// Returns a sequential Spliterator over the result of findIterator, for use
+	// with streams.
+	public Spliterator<T> findSpliterator(long xLo, long xHi, long yLo, long yHi) {
+		return Spliterators.spliteratorUnknownSize(findIterator(xLo, xHi, yLo, yHi),
+				Spliterator.NONNULL | Spliterator.DISTINCT);
+	}
+
+	/**
+	 * Range query iterator. Walks the tree with an explicit stack instead of recursion,
+	 * keeping each pending node's region in a parallel primitive array, and pauses at
+	 * every match.
+	 */
+	private class prQuadRangeIterator implements Iterator<T> {
+		private final long xLo, xHi, yLo, yHi;
+
+		// Pending nodes, their regions (four longs each) and whether they lie wholly
+		// inside the query.
+		private Object[] nodes = new Object[16];
+		private long[] regions = new long[16 * 4];
+		private boolean[] contained = new boolean[16];
+		private int size = 0;
+
+		// Bucket of the leaf currently being scanned.
+		private ArrayList<T> bucket;
+		private int bucketPos;
+		private boolean bucketContained;
+
+		private T next;
+
+		prQuadRangeIterator(long xLo, long xHi, long yLo, long yHi) {
+			this.xLo = xLo;
+			this.xHi = xHi;
+			this.yLo = yLo;
+			this.yHi = yHi;
+
+			push(root, xMin, xMax, yMin, yMax, false);
+			advance();
+		}
+
+		/**
+		 * Pushes a node onto the stack, unless it's empty or misses the query.
+		 */
+		private void push(prQuadNode node, long nodeXLo, long nodeXHi, long nodeYLo, long nodeYHi, boolean inside) {
+			if (node == null) {
+				return;
+			}
+
+			if (!inside) {
+				if (!findOverlap(nodeXLo, nodeXHi, nodeYLo, nodeYHi, xLo, xHi, yLo, yHi)) {
+					return;
+				}
+				inside = findContained(nodeXLo, nodeXHi, nodeYLo, nodeYHi, xLo, xHi, yLo, yHi);
+			}
+
+			if (size == nodes.length) {
+				nodes = Arrays.copyOf(nodes, size * 2);
+				regions = Arrays.copyOf(regions, size * 2 * 4);
+				contained = Arrays.copyOf(contained, size * 2);
+			}
+
+			nodes[size] = node;
+			regions[size * 4] = nodeXLo;
+			regions[size * 4 + 1] = nodeXHi;
+			regions[size * 4 + 2] = nodeYLo;
+			regions[size * 4 + 3] = nodeYHi;
+			contained[size] = inside;
+			size++;
+		}
+
+		/**
+		 * Moves next to the following match, or to null once the tree is exhausted.
+		 */
+		@SuppressWarnings("unchecked")
+		private void advance() {
+			next = null;
+
+			while (true) {
+				// Finish the current bucket first.
+				while (bucket != null && bucketPos < bucket.size()) {
+					T elem = bucket.get(bucketPos++);
+
+					if (bucketContained || elem.inBox(xLo, xHi, yLo, yHi)) {
+						next = elem;
+						return;
+					}
+				}
+				bucket = null;
+
+				if (size == 0) {
+					return;
+				}
+
+				size--;
+				prQuadNode node = (prQuadNode) nodes[size];
+				nodes[size] = null;
+
+				long nodeXLo = regions[size * 4];
+				long nodeXHi = regions[size * 4 + 1];
+				long nodeYLo = regions[size * 4 + 2];
+				long nodeYHi = regions[size * 4 + 3];
+				boolean inside = contained[size];
+
+				if (node instanceof prQuadTree.prQuadInternal) {
+					prQuadInternal internalNode = (prQuadInternal) node;
+
+					long xMid = midpoint(nodeXLo, nodeXHi);
+					long yMid = midpoint(nodeYLo, nodeYHi);
+
+					// Pushed in reverse so children come off the stack NE, NW, SE, SW,
+					// the same order the recursive find visits them in.
+					push(internalNode.SW, nodeXLo, xMid, nodeYLo, yMid, inside);
+					push(internalNode.SE, xMid, nodeXHi, nodeYLo, yMid, inside);
+					push(internalNode.NW, nodeXLo, xMid, yMid, nodeYHi, inside);
+					push(internalNode.NE, xMid, nodeXHi, yMid, nodeYHi, inside);
+				} else {
+					bucket = ((prQuadTree<T>.prQuadLeaf) node).Elements;
+					bucketPos = 0;
+					bucketContained = inside;
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public T next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+
+			T result = next;
+			advance();
+			return result;
+		}
+	}
+
+	// Pre: k >= 0
+	// Returns (references to) the k elements nearest to (x, y) by great-circle
+	// distance, nearest first. Fewer are returned if the tree holds fewer.
+	public ArrayList<T> findNearest(long x, long y, int k) {
+		return nearestHelper(x, y, k, Double.POSITIVE_INFINITY);
+	}
+
+	// Pre: radius >= 0
+	// Returns (references to) all elements within radius meters of (x, y) by
+	// great-circle distance, nearest first.
+	public ArrayList<T> findWithin(long x, long y, double radius) {
+		return nearestHelper(x, y, Integer.MAX_VALUE, radius);
+	}
+
+	/**
+	 * Best-first search shared by findNearest and findWithin. Nodes and elements share a
+	 * priority queue ordered by distance, nodes keyed by the smallest distance any point
+	 * of their region could have. Whenever an element comes off the queue nothing left can
+	 * be closer, so it's the next result.
+	 */
+	@SuppressWarnings("unchecked")
+	private ArrayList<T> nearestHelper(long x, long y, int k, double radius) {
+		ArrayList<T> collection = new ArrayList<T>();
+		PriorityQueue<prQuadQueueEntry> queue = new PriorityQueue<>();
+
+		if (root != null && k > 0) {
+			queue.add(new prQuadQueueEntry(root, GreatCircle.minDistance(x, y, xMin, xMax, yMin, yMax),
+					xMin, xMax, yMin, yMax));
+		}
+
+		while (!queue.isEmpty() && collection.size() < k) {
+			prQuadQueueEntry entry = queue.poll();
+
+			if (entry.distance > radius) {
+				break;
+			}
+
+			if (entry.elem != null) {
+				collection.add(entry.elem);
+			} else if (entry.node instanceof prQuadTree.prQuadInternal) {
+				prQuadInternal internalNode = (prQuadInternal) entry.node;
+
+				long xMid = midpoint(entry.xLo, entry.xHi);
+				long yMid = midpoint(entry.yLo, entry.yHi);
+
+				offer(queue, internalNode.NE, x, y, xMid, entry.xHi, yMid, entry.yHi, radius);
+				offer(queue, internalNode.NW, x, y, entry.xLo, xMid, yMid, entry.yHi, radius);
+				offer(queue, internalNode.SE, x, y, xMid, entry.xHi, entry.yLo, yMid, radius);
+				offer(queue, internalNode.SW, x, y, entry.xLo, xMid, entry.yLo, yMid, radius);
+			} else {
+				for (T elem : ((prQuadTree<T>.prQuadLeaf) entry.node).Elements) {
+					double distance = GreatCircle.distance(x, y, elem.getX(), elem.getY());
+
+					if (distance <= radius) {
+						queue.add(new prQuadQueueEntry(elem, distance));
+					}
+				}
+			}
+		}
+
 		return collection;
 	}
 
+	/**
+	 * Queues a child node for nearestHelper, unless it's empty or entirely out of range.
+	 */
+	private void offer(PriorityQueue<prQuadQueueEntry> queue, prQuadNode node, long x, long y, long nodeXLo,
+			long nodeXHi, long nodeYLo, long nodeYHi, double radius) {
+		if (node == null) {
+			return;
+		}
+
+		double distance = GreatCircle.minDistance(x, y, nodeXLo, nodeXHi, nodeYLo, nodeYHi);
+
+		if (distance <= radius) {
+			queue.add(new prQuadQueueEntry(node, distance, nodeXLo, nodeXHi, nodeYLo, nodeYHi));
+		}
+	}
+
+	/**
+	 * Priority queue entry for nearestHelper, either a node along with its region or a
+	 * single element.
+	 */
+	private class prQuadQueueEntry implements Comparable<prQuadQueueEntry> {
+		final double distance;
+		final prQuadNode node;
+		final T elem;
+		final long xLo, xHi, yLo, yHi;
+
+		prQuadQueueEntry(prQuadNode node, double distance, long xLo, long xHi, long yLo, long yHi) {
+			this.distance = distance;
+			this.node = node;
+			this.elem = null;
+			this.xLo = xLo;
+			this.xHi = xHi;
+			this.yLo = yLo;
+			this.yHi = yHi;
+		}
+
+		prQuadQueueEntry(T elem, double distance) {
+			this.distance = distance;
+			this.node = null;
+			this.elem = elem;
+			this.xLo = this.xHi = this.yLo = this.yHi = 0;
+		}
+
+		@Override
+		public int compareTo(prQuadQueueEntry other) {
+			int result = Double.compare(distance, other.distance);
+
+			// On ties, elements come before nodes so they're reported as soon as possible.
+			if (result == 0 && (elem == null) != (other.elem == null)) {
+				result = elem != null ? -1 : 1;
+			}
+
+			return result;
+		}
+	}
+
 	/**
 	 * Displays the PRQuadTree, code is from T05_PRQuadTreeImplementation.pdf.
 	 * @param sRoot: root of the prQuadTree.
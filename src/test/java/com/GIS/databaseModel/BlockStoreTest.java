@@ -0,0 +1,261 @@
+package com.GIS.databaseModel;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that BlockStore gives back exactly the bytes appended to it, across frames, after a
+ * reopen and after a truncate, and that it catches frames that are corrupt or were never finished.
+ * @author Mansour Najah
+ */
+public class BlockStoreTest {
+
+	// Small blocks, so a few records span many frames.
+	private static final int BLOCK_SIZE = 64;
+
+	// Where the first frame starts, after the file header.
+	private static final int FIRST_FRAME = 12;
+
+	/**
+	 * Appends records of random lengths, flushing now and then the way each import ends, so some
+	 * frames are cut short. Returns the content the store should hold.
+	 */
+	private static byte[] fill(BlockStore store, FileChannel channel, int records, long seed) throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		Random random = new Random(seed);
+
+		for (int i = 0; i < records; i++) {
+			StringBuilder record = new StringBuilder(i + "|");
+			int length = random.nextInt(3 * BLOCK_SIZE);
+
+			while (record.length() < length) {
+				record.append((char) ('a' + random.nextInt(26)));
+			}
+
+			store.append(channel, record.toString());
+			content.write((record + "\n").getBytes(StandardCharsets.ISO_8859_1));
+
+			if (random.nextInt(10) == 0) {
+				store.flush(channel);
+			}
+		}
+
+		store.flush(channel);
+
+		return content.toByteArray();
+	}
+
+	/**
+	 * Reads the store's whole content through buffers of the given size.
+	 */
+	private static byte[] readAll(BlockStore store, FileChannel channel, int bufferSize) throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		byte[] buffer = new byte[bufferSize];
+		long position = 0;
+		int read;
+
+		while ((read = store.read(channel, position, buffer)) > 0) {
+			content.write(buffer, 0, read);
+			position += read;
+		}
+
+		return content.toByteArray();
+	}
+
+	private static FileChannel channel(Path file) throws IOException {
+		return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	@Test
+	public void appendedBytesComeBackAfterAReopen(@TempDir Path dir) throws IOException {
+		Path file = dir.resolve("db.txt");
+		byte[] content;
+
+		try (FileChannel channel = channel(file)) {
+			BlockStore store = BlockStore.create(channel, BLOCK_SIZE);
+			content = fill(store, channel, 300, 1);
+
+			assertEquals(content.length, store.length());
+			assertArrayEquals(content, readAll(store, channel, 100));
+		}
+
+		try (FileChannel channel = channel(file)) {
+			assertTrue(BlockStore.isBlockFile(channel));
+
+			BlockStore store = BlockStore.open(channel);
+
+			assertEquals(content.length, store.length());
+			assertArrayEquals(content, readAll(store, channel, 7));
+			assertEquals(0, store.read(channel, content.length, new byte[10]));
+
+			// Appending after a reopen carries on where the content ended.
+			byte[] more = fill(store, channel, 50, 2);
+			byte[] all = Arrays.copyOf(content, content.length + more.length);
+			System.arraycopy(more, 0, all, content.length, more.length);
+
+			assertArrayEquals(all, readAll(store, channel, BLOCK_SIZE));
+		}
+	}
+
+	/**
+	 * A read starting anywhere, of any length, must cross as many frame boundaries as it needs to,
+	 * full blocks and frames cut short by a flush alike.
+	 */
+	@Test
+	public void readsCrossFrameBoundaries(@TempDir Path dir) throws IOException {
+		try (FileChannel channel = channel(dir.resolve("db.txt"))) {
+			BlockStore store = BlockStore.create(channel, BLOCK_SIZE);
+			byte[] content = fill(store, channel, 200, 3);
+			Random random = new Random(4);
+
+			for (int i = 0; i < 2000; i++) {
+				int position = random.nextInt(content.length);
+				byte[] buffer = new byte[1 + random.nextInt(5 * BLOCK_SIZE)];
+				int read = store.read(channel, position, buffer);
+
+				assertEquals(Math.min(buffer.length, content.length - position), read);
+				assertArrayEquals(Arrays.copyOfRange(content, position, position + read), Arrays.copyOf(buffer, read),
+						read + " bytes at " + position);
+			}
+		}
+	}
+
+	@Test
+	public void truncateKeepsTheBytesBeforeTheNewEnd(@TempDir Path dir) throws IOException {
+		Path file = dir.resolve("db.txt");
+		byte[] content;
+		int newLength;
+
+		try (FileChannel channel = channel(file)) {
+			BlockStore store = BlockStore.create(channel, BLOCK_SIZE);
+			content = fill(store, channel, 100, 5);
+			newLength = content.length / 2 + 3;
+
+			// The frame being cut is the one read last.
+			store.read(channel, newLength - 1, new byte[1]);
+			store.truncate(channel, newLength);
+
+			assertEquals(newLength, store.length());
+			assertArrayEquals(Arrays.copyOf(content, newLength), readAll(store, channel, 33));
+		}
+
+		try (FileChannel channel = channel(file)) {
+			BlockStore store = BlockStore.open(channel);
+			assertArrayEquals(Arrays.copyOf(content, newLength), readAll(store, channel, 33));
+		}
+	}
+
+	/**
+	 * A run that stopped while writing a frame leaves part of it at the end of the file. Opening
+	 * the file cuts it off, along with what it held, and the frames before it are all still there.
+	 */
+	@Test
+	public void openCutsOffATornLastFrame(@TempDir Path dir) throws IOException {
+		Path file = dir.resolve("db.txt");
+		byte[] content;
+		long complete, tornEnd;
+
+		try (FileChannel channel = channel(file)) {
+			BlockStore store = BlockStore.create(channel, BLOCK_SIZE);
+			content = fill(store, channel, 100, 6);
+			complete = store.length();
+			long frameStart = channel.size();
+
+			// One more frame, of which only part makes it to the disk.
+			store.append(channel, "Torn|record");
+			store.flush(channel);
+			tornEnd = frameStart + (channel.size() - frameStart) / 2;
+			channel.truncate(tornEnd);
+		}
+
+		try (FileChannel channel = channel(file)) {
+			BlockStore store = BlockStore.open(channel);
+
+			assertEquals(complete, store.length());
+			assertTrue(channel.size() < tornEnd);
+			assertArrayEquals(content, readAll(store, channel, 100));
+		}
+
+		// Less than a frame header left over is cut off too.
+		long size;
+
+		try (FileChannel channel = channel(file)) {
+			size = channel.size();
+			channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 5, 0}), size);
+		}
+
+		try (FileChannel channel = channel(file)) {
+			BlockStore store = BlockStore.open(channel);
+
+			assertEquals(complete, store.length());
+			assertEquals(size, channel.size());
+		}
+	}
+
+	/**
+	 * A frame whose bytes don't match its checksum, or don't inflate, fails the read instead of
+	 * handing back the wrong record.
+	 */
+	@Test
+	public void corruptFramesAreCaught(@TempDir Path dir) throws IOException {
+		Path file = dir.resolve("db.txt");
+
+		try (FileChannel channel = channel(file)) {
+			BlockStore store = BlockStore.create(channel, BLOCK_SIZE);
+			fill(store, channel, 20, 7);
+		}
+
+		// Flip a bit of the first frame's checksum.
+		try (FileChannel channel = channel(file)) {
+			flip(channel, FIRST_FRAME + 8);
+
+			BlockStore store = BlockStore.open(channel);
+			IOException e = assertThrows(IOException.class, () -> store.read(channel, 0, new byte[10]));
+			assertTrue(e.getMessage().contains("checksum"), e.getMessage());
+
+			// Frames past the bad one still read.
+			assertEquals(10, store.read(channel, BLOCK_SIZE, new byte[10]));
+			flip(channel, FIRST_FRAME + 8);
+		}
+
+		// Then a bit of its compressed bytes.
+		try (FileChannel channel = channel(file)) {
+			flip(channel, FIRST_FRAME + 14);
+
+			BlockStore store = BlockStore.open(channel);
+			assertThrows(IOException.class, () -> store.read(channel, 0, new byte[10]));
+		}
+
+		// A file that isn't a block store isn't taken for one.
+		try (FileChannel channel = channel(dir.resolve("plain.txt"))) {
+			channel.write(ByteBuffer.wrap(DbFileModel.HEADER.getBytes(StandardCharsets.ISO_8859_1)));
+			assertFalse(BlockStore.isBlockFile(channel));
+		}
+	}
+
+	/**
+	 * Flips the lowest bit of a byte of the file.
+	 */
+	private static void flip(FileChannel channel, long position) throws IOException {
+		ByteBuffer b = ByteBuffer.allocate(1);
+		channel.read(b, position);
+		b.put(0, (byte) (b.get(0) ^ 1)).rewind();
+		channel.write(b, position);
+	}
+}
@@ -0,0 +1,160 @@
+package com.GIS.databaseModel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.GIS.util.FieldTokenizer;
+import com.GIS.util.StringDictionary;
+import com.GIS.world.CoordinateParser;
+
+/**
+ * Tests that ColumnStore's file gives back each record's columns through a page cache, before
+ * and after a snapshot round trip, and that it refuses offsets and files it doesn't know.
+ * @author Mansour Najah
+ */
+public class ColumnStoreTest {
+
+	// Pages much smaller than a row, so most rows span several of them.
+	private static final int PAGE_SIZE = 16;
+
+	private static final Set<Feature.Column> ALL = EnumSet.allOf(Feature.Column.class);
+
+	/**
+	 * Appends the records of a sample file in two batches, each at the offset it would have in a
+	 * db file that starts with the header line. Returns the offsets.
+	 */
+	private static long[] fill(ColumnStore store, List<String> records) throws IOException {
+		long[] offsets = new long[records.size()];
+		FieldTokenizer fields = new FieldTokenizer();
+		long offset = DbFileModel.HEADER.length() + 1;
+		int half = records.size() / 2;
+		ColumnStore.Rows batch = new ColumnStore.Rows(half);
+
+		for (int i = 0; i < records.size(); i++) {
+			if (i == half) {
+				store.append(batch);
+				batch = new ColumnStore.Rows(records.size() - half);
+			}
+
+			offsets[i] = offset;
+			batch.add(offset, fields.reset(records.get(i)));
+			offset += records.get(i).length() + 1;
+		}
+
+		store.append(batch);
+
+		return offsets;
+	}
+
+	/**
+	 * Checks that every record's columns come out as its text has them.
+	 */
+	private static void assertRows(ColumnStore store, long[] offsets, List<String> records) throws IOException {
+		PageCache pages = new PageCache(1 << 20, "lru", PAGE_SIZE);
+
+		for (int i = 0; i < records.size(); i++) {
+			String record = records.get(i);
+			String[] fields = record.split("\\|", -1);
+			Feature feature = store.project(pages, offsets[i], ALL, record);
+
+			assertEquals(fields[1], feature.getName(), record);
+			assertEquals(fields[3], feature.getState(), record);
+			assertEquals(fields[5], feature.getCounty(), record);
+			assertEquals(CoordinateParser.render(fields[7], 0, fields[7].length()),
+					CoordinateParser.render(feature.getLatitude()), record);
+			assertEquals(CoordinateParser.render(fields[8], 0, fields[8].length()),
+					CoordinateParser.render(feature.getLongitude()), record);
+			assertEquals(record, feature.getRecord());
+		}
+	}
+
+	private static List<String> records() throws IOException {
+		List<String> lines = Files.readAllLines(Paths.get("VA_Bath.txt"), StandardCharsets.ISO_8859_1);
+		return lines.subList(1, lines.size());
+	}
+
+	@Test
+	public void rowsComeBackThroughThePageCache(@TempDir Path dir) throws IOException {
+		List<String> records = records();
+
+		try (ColumnStore store = new ColumnStore(dir.resolve("db.txt.columns").toString(), new StringDictionary())) {
+			long[] offsets = fill(store, records);
+
+			assertEquals(records.size(), store.size());
+			assertEquals(store.fileLength(), Files.size(dir.resolve("db.txt.columns")));
+			assertRows(store, offsets, records);
+
+			// Only the columns asked for are filled in.
+			Feature feature = store.project(new PageCache(1 << 20, "lru", PAGE_SIZE), offsets[3],
+					EnumSet.of(Feature.Column.STATE), null);
+
+			assertEquals("VA", feature.getState());
+			assertNull(feature.getName());
+			assertNull(feature.getCounty());
+			assertEquals(CoordinateParser.UNKNOWN_PACKED, feature.getLatitude());
+		}
+	}
+
+	/**
+	 * An offset that isn't the start of a record the store holds is an error naming the offset,
+	 * not a feature with nothing in it.
+	 */
+	@Test
+	public void unknownOffsetsAreRefused(@TempDir Path dir) throws IOException {
+		try (ColumnStore store = new ColumnStore(dir.resolve("db.txt.columns").toString(), new StringDictionary())) {
+			long[] offsets = fill(store, records());
+			PageCache pages = new PageCache(1 << 20, "lru", PAGE_SIZE);
+
+			for (long offset : new long[] {0, offsets[5] + 1, offsets[offsets.length - 1] + 1000}) {
+				IOException e = assertThrows(IOException.class, () -> store.project(pages, offset, ALL, null));
+				assertTrue(e.getMessage().contains("offset " + offset + "."), e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * A store read back from a snapshot finds its rows in the file it left behind, and won't
+	 * take a file that has changed length since.
+	 */
+	@Test
+	public void snapshotRoundTripChecksTheFile(@TempDir Path dir) throws IOException {
+		List<String> records = records();
+		String file = dir.resolve("db.txt.columns").toString();
+		ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+		long[] offsets;
+
+		try (ColumnStore store = new ColumnStore(file, new StringDictionary())) {
+			offsets = fill(store, records);
+			store.write(new DataOutputStream(snapshot));
+		}
+
+		try (ColumnStore store = ColumnStore.read(ByteBuffer.wrap(snapshot.toByteArray()), file, new StringDictionary())) {
+			assertEquals(records.size(), store.size());
+			assertRows(store, offsets, records);
+		}
+
+		Files.write(Paths.get(file), new byte[] {0}, StandardOpenOption.APPEND);
+
+		IOException e = assertThrows(IOException.class,
+				() -> ColumnStore.read(ByteBuffer.wrap(snapshot.toByteArray()), file, new StringDictionary()));
+		assertTrue(e.getMessage().contains("expects"), e.getMessage());
+	}
+}
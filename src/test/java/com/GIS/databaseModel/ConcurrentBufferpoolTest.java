@@ -0,0 +1,149 @@
+package com.GIS.databaseModel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Stress tests of ConcurrentBufferpool, with query threads hammering every segment at once.
+ * @author Mansour Najah
+ */
+public class ConcurrentBufferpoolTest {
+
+	private static final int THREADS = 8;
+	private static final String[] POLICIES = {"lru", "clock", "2q", "tinylfu"};
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+	@AfterEach
+	public void shutdown() throws InterruptedException {
+		executor.shutdownNow();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * The record a key stands for, its length varying with the key.
+	 */
+	private static String record(long key) {
+		StringBuilder record = new StringBuilder("record " + key + "|");
+
+		for (int i = 0; i < key % 64; i++) {
+			record.append((char) ('a' + i % 26));
+		}
+
+		return record.toString();
+	}
+
+	/**
+	 * Runs a task on every thread at once, failing on the first error any of them hit.
+	 */
+	private void runConcurrently(Task task) throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+
+		for (int t = 0; t < THREADS; t++) {
+			int thread = t;
+
+			futures.add(executor.submit(() -> {
+				start.await();
+				task.run(thread);
+				return null;
+			}));
+		}
+
+		start.countDown();
+
+		for (Future<?> future : futures) {
+			future.get(60, TimeUnit.SECONDS);
+		}
+	}
+
+	@FunctionalInterface
+	private interface Task {
+		void run(int thread) throws Exception;
+	}
+
+	/**
+	 * With room for every record, nothing a thread inserts may go missing and the pool must
+	 * account for exactly the bytes inserted.
+	 */
+	@Test
+	public void concurrentInsertsLoseNothing() throws Exception {
+		int perThread = 20_000;
+		ConcurrentBufferpool pool = new ConcurrentBufferpool(1L << 30, "lru");
+		assertEquals(ConcurrentBufferpool.DEFAULT_SEGMENTS, pool.getSegmentCount());
+
+		// Threads interleave their keys, so every segment is written by every thread.
+		runConcurrently(thread -> {
+			for (int i = 0; i < perThread; i++) {
+				long key = (long) i * THREADS + thread;
+
+				pool.insertElem(record(key), key);
+				assertEquals(record(key), pool.getElem(key));
+			}
+		});
+
+		long expectedBytes = 0;
+
+		for (long key = 0; key < (long) perThread * THREADS; key++) {
+			assertEquals(record(key), pool.getElem(key), "record " + key);
+			expectedBytes += Bufferpool.weigh(record(key));
+		}
+
+		assertEquals(expectedBytes, pool.getUsedBytes());
+		assertEquals(0, pool.getEvictions());
+	}
+
+	/**
+	 * Under a budget far smaller than the records asked for, threads fetching skewed keys with
+	 * get-then-insert-on-miss must never see the wrong record, and the pool must stay within
+	 * its budget under every eviction policy.
+	 */
+	@Test
+	public void concurrentLookupsRespectBudget() throws Exception {
+		long budget = 1L << 20;
+		int lookups = 100_000;
+		int keys = 50_000;
+
+		for (String policy : POLICIES) {
+			ConcurrentBufferpool pool = new ConcurrentBufferpool(budget, policy);
+			assertTrue(pool.getSegmentCount() > 1, policy);
+
+			runConcurrently(thread -> {
+				Random random = new Random(thread);
+
+				for (int i = 0; i < lookups; i++) {
+					// Squaring skews lookups toward low keys, so some stay hot.
+					double r = random.nextDouble();
+					long key = (long) (r * r * keys);
+					String record = pool.getElem(key);
+
+					if (record == null) {
+						pool.insertElem(record(key), key);
+					} else {
+						assertEquals(record(key), record, policy + " returned the wrong record");
+					}
+
+					if (i % 1000 == 0) {
+						assertTrue(pool.getUsedBytes() <= budget, policy + " went over budget");
+					}
+				}
+			});
+
+			assertEquals((long) lookups * THREADS, pool.getHits() + pool.getMisses(), policy + " lost a lookup");
+			assertTrue(pool.getHits() > 0 && pool.getEvictions() > 0, policy);
+			assertTrue(pool.getUsedBytes() <= budget, policy + " went over budget");
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.GIS.databaseModel;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that an import indexes the same way whatever the number of threads it runs on.
+ * @author Mansour Najah
+ */
+public class DbControllerTest {
+
+	// The sample data files, in the project directory.
+	private static final String[] SAMPLES = {"VA_Bath.txt", "VA_Highland.txt", "VA_Monterey.txt", "VA_Montgomery.txt"};
+
+	/**
+	 * Writes a data file of every sample record, three times over, so an import spans several
+	 * batches and the same names and locations turn up in more than one of them. The copies
+	 * come in different orders, so which of a location's records comes first, and so which
+	 * one the others merge into, changes from batch to batch.
+	 */
+	private static Path fixture(Path dir) throws IOException {
+		List<String> records = new ArrayList<>();
+		String header = null;
+
+		for (String sample : SAMPLES) {
+			List<String> sampleLines = Files.readAllLines(Paths.get(sample), StandardCharsets.ISO_8859_1);
+			header = sampleLines.get(0);
+			records.addAll(sampleLines.subList(1, sampleLines.size()));
+		}
+
+		List<String> lines = new ArrayList<>();
+		lines.add(header);
+		lines.addAll(records);
+
+		Collections.reverse(records);
+		lines.addAll(records);
+
+		Collections.shuffle(records, new Random(17));
+		lines.addAll(records);
+
+		Path file = dir.resolve("fixture.txt");
+		Files.write(file, lines, StandardCharsets.ISO_8859_1);
+
+		return file;
+	}
+
+	/**
+	 * Imports the fixture twice, the first into an empty world, which is bulk loaded, and the
+	 * second into a full one, which is inserted into. Returns the db file, the column file, an index
+	 * snapshot of the table, world and column store, and the table and world as "show" writes them.
+	 */
+	private static List<byte[]> importWith(int threads, Path fixture, Path dir) throws IOException {
+		String name = "db" + threads;
+		String dbFile = dir.resolve(name + ".txt").toString();
+		Path snapshot = dir.resolve(name + ".idx");
+		Path shown = dir.resolve(name + ".log");
+		DbController controller = new DbController(dbFile);
+
+		try {
+			controller.setImportThreads(threads);
+			controller.getWorldBoundaries("0830000W", "0770000W", "360000N", "390000N");
+
+			long[] first = controller.importRecords(fixture.toString());
+			long[] second = controller.importRecords(fixture.toString());
+			controller.saveIndex(snapshot.toString());
+
+			try (FileWriter fw = new FileWriter(shown.toFile())) {
+				fw.write(first[0] + " " + first[1] + " " + first[2] + "\n");
+				fw.write(second[0] + " " + second[1] + " " + second[2] + "\n");
+				controller.show("quad", fw);
+				controller.show("hash", fw);
+			}
+		} finally {
+			controller.shutdown();
+		}
+
+		return List.of(Files.readAllBytes(Paths.get(dbFile)), Files.readAllBytes(Paths.get(ColumnStore.columnsFile(dbFile))),
+				Files.readAllBytes(snapshot), Files.readAllBytes(shown));
+	}
+
+	/**
+	 * An import on several worker threads, which sort their batches into runs for the bulk load,
+	 * must build the same table, world and offsets as a serial import, down to the slot and bucket
+	 * every entry lands in.
+	 */
+	@Test
+	public void parallelImportMatchesSerialImport(@TempDir Path dir) throws IOException {
+		Path fixture = fixture(dir);
+		List<byte[]> serial = importWith(1, fixture, dir);
+
+		for (int threads : new int[] {2, 4}) {
+			List<byte[]> parallel = importWith(threads, fixture, dir);
+
+			assertArrayEquals(serial.get(0), parallel.get(0), "db file with " + threads + " threads");
+			assertArrayEquals(serial.get(1), parallel.get(1), "column file with " + threads + " threads");
+			assertArrayEquals(serial.get(2), parallel.get(2), "index snapshot with " + threads + " threads");
+			assertEquals(new String(serial.get(3), StandardCharsets.ISO_8859_1), new String(parallel.get(3), StandardCharsets.ISO_8859_1),
+					"table and world with " + threads + " threads");
+		}
+	}
+}
@@ -0,0 +1,209 @@
+package com.GIS.databaseModel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of Bufferpool's byte budget under each eviction policy, and of what sets each policy
+ * apart: CLOCK's second chance, 2Q's promotion from A1in to Am and TinyLFU's admission filter.
+ * @author Mansour Najah
+ */
+public class EvictionPolicyTest {
+
+	private static final String[] POLICIES = {"lru", "clock", "2q", "tinylfu"};
+
+	// Every value in the policy tests weighs this much in the pool.
+	private static final long WEIGHT = 200;
+
+	/**
+	 * A value of the given length, telling which key and which version of it it is.
+	 */
+	private static String value(long key, int version, int length) {
+		StringBuilder value = new StringBuilder(key + "/" + version + "|");
+
+		while (value.length() < length) {
+			value.append('x');
+		}
+
+		return value.toString();
+	}
+
+	/**
+	 * A value that weighs WEIGHT bytes in the pool.
+	 */
+	private static String value(long key) {
+		return value(key, 0, (int) (WEIGHT - Bufferpool.weigh("")));
+	}
+
+	/**
+	 * Fetches a key the way PageCache does, inserting its value on a miss.
+	 */
+	private static void fetch(Bufferpool pool, long key) {
+		if (pool.getElem(key) == null) {
+			pool.insertElem(value(key), key);
+		}
+	}
+
+	/**
+	 * Under every policy, a mix of lookups, inserts, replacements and removals of values of
+	 * many sizes, one of them bigger than the whole budget, must never leave the pool over
+	 * budget or hand back anything but the latest value of a key.
+	 */
+	@Test
+	public void budgetIsNeverExceeded() {
+		for (String name : POLICIES) {
+			long budget = 8 * 1024;
+			Bufferpool pool = new Bufferpool(budget, EvictionPolicy.forName(name, budget));
+			Map<Long, String> latest = new HashMap<>();
+			Random random = new Random(5);
+
+			for (int i = 0; i < 50_000; i++) {
+				// Mostly a small set of hot keys, with a long tail of cold ones.
+				long key = random.nextInt(4) == 0 ? random.nextInt(2000) : random.nextInt(40);
+				int op = random.nextInt(10);
+
+				if (op < 6) {
+					String cached = pool.getElem(key);
+
+					if (cached != null) {
+						assertEquals(latest.get(key), cached, name + " key " + key);
+					}
+				} else if (op < 9) {
+					int length = i == 25_000 ? (int) budget * 2 : random.nextInt(600);
+					String value = value(key, i, length);
+
+					pool.insertElem(value, key);
+					latest.put(key, value);
+				} else {
+					pool.removeElem(key);
+				}
+
+				assertTrue(pool.getUsedBytes() <= budget, name + " used " + pool.getUsedBytes() + " of " + budget);
+				assertTrue(pool.getUsedBytes() >= 0, name);
+			}
+
+			assertTrue(pool.getEvictions() > 0, name);
+		}
+	}
+
+	/**
+	 * A record hit since the hand last passed is skipped once, and evicted the next time round
+	 * unless it's hit again.
+	 */
+	@Test
+	public void clockGivesASecondChance() {
+		Bufferpool pool = new Bufferpool(3 * WEIGHT, new ClockPolicy());
+
+		fetch(pool, 1);
+		fetch(pool, 2);
+		fetch(pool, 3);
+
+		// 1 is the oldest, but it's been referenced, so 2 goes in its place.
+		assertNotNull(pool.getElem(1));
+		fetch(pool, 4);
+		assertNull(pool.getElem(2));
+
+		// The hand cleared 1's bit as it passed, so 1 goes once the younger records have.
+		fetch(pool, 5);
+		assertNull(pool.getElem(3));
+		fetch(pool, 6);
+		assertNull(pool.getElem(4));
+		fetch(pool, 7);
+		assertNull(pool.getElem(1));
+
+		assertNotNull(pool.getElem(5));
+		assertNotNull(pool.getElem(6));
+		assertNotNull(pool.getElem(7));
+		assertEquals(4, pool.getEvictions());
+	}
+
+	/**
+	 * A record fetched again after falling out of A1in, while A1out still remembers its key,
+	 * goes to Am, where a scan of one-off records passing through A1in can't evict it. A hit
+	 * while still in A1in doesn't promote anything.
+	 */
+	@Test
+	public void twoQueuePromotesFromA1inToAm() {
+		long budget = 10 * WEIGHT;
+		Bufferpool pool = new Bufferpool(budget, new TwoQueuePolicy(budget));
+
+		for (long key = 1; key <= 11; key++) {
+			fetch(pool, key);
+		}
+
+		// Am is empty, so the 11th record pushed the oldest one out of A1in.
+		assertNull(pool.getElem(1));
+		fetch(pool, 1);
+
+		// Hit 6 while it's in A1in, which is FIFO.
+		assertNotNull(pool.getElem(6));
+
+		for (long key = 100; key < 200; key++) {
+			fetch(pool, key);
+		}
+
+		assertNotNull(pool.getElem(1));
+		assertNull(pool.getElem(6));
+		assertNull(pool.getElem(11));
+	}
+
+	/**
+	 * Once the main queue is full, a record leaving the window only gets in if it's been asked
+	 * for more often than the main queue's LRU victim. A cold record loses and is dropped, where
+	 * LRU would have evicted a hot one for it.
+	 */
+	@Test
+	public void tinyLfuRejectsAColdKey() {
+		long budget = 100 * WEIGHT;
+		Bufferpool pool = new Bufferpool(budget, new TinyLfuPolicy(budget));
+
+		// 99 hot records fill the main queue once the window overflows.
+		for (long key = 1; key <= 99; key++) {
+			fetch(pool, key);
+		}
+
+		for (int round = 0; round < 5; round++) {
+			for (long key = 1; key <= 99; key++) {
+				assertNotNull(pool.getElem(key));
+			}
+		}
+
+		// 100 fills the pool, 101 overflows it and sends 100 to the contest.
+		fetch(pool, 100);
+		fetch(pool, 101);
+
+		assertEquals(1, pool.getEvictions());
+		assertNull(pool.getElem(100));
+
+		for (long key = 1; key <= 99; key++) {
+			assertNotNull(pool.getElem(key), "hot key " + key);
+		}
+
+		assertNotNull(pool.getElem(101));
+
+		// The same lookups under LRU evict the least recently used hot record instead.
+		Bufferpool lru = new Bufferpool(budget, new LruPolicy());
+
+		for (long key = 1; key <= 99; key++) {
+			fetch(lru, key);
+		}
+
+		for (long key = 1; key <= 99; key++) {
+			lru.getElem(key);
+		}
+
+		fetch(lru, 100);
+		fetch(lru, 101);
+
+		assertNull(lru.getElem(1));
+		assertNotNull(lru.getElem(100));
+	}
+}
@@ -0,0 +1,175 @@
+package com.GIS.hashtable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of openHashTable's linear probing, resizing, upserts and slot order.
+ * @author Mansour Najah
+ */
+public class openHashTableTest {
+
+	/**
+	 * A key whose hash is picked by the test, so collisions can be set up on purpose.
+	 */
+	private static final class Key implements Hashable<Key> {
+		final int id;
+		final int hash;
+
+		Key(int id, int hash) {
+			this.id = id;
+			this.hash = hash;
+		}
+
+		public int Hash() {
+			return hash;
+		}
+
+		public int hashCode() {
+			return hash;
+		}
+
+		public boolean equals(Object other) {
+			return other instanceof Key && ((Key) other).id == id;
+		}
+
+		public String toString() {
+			return "k" + id;
+		}
+	}
+
+	/**
+	 * Keys sharing a home slot, and keys homed at the last slot, must each probe on to a slot
+	 * of their own, wrapping around to the start of the table, and still be found.
+	 */
+	@Test
+	public void collisionChainsProbePastEachOther() {
+		openHashTable<Key> table = new openHashTable<>(16, 0.9);
+		List<Key> keys = new ArrayList<>();
+
+		for (int i = 0; i < 5; i++) {
+			keys.add(new Key(i, 3));
+		}
+
+		// Homed at slot 15, so all but the first wrap around, past the chain of 3s.
+		for (int i = 5; i < 10; i++) {
+			keys.add(new Key(i, 15 + 16 * i));
+		}
+
+		for (Key key : keys) {
+			assertTrue(table.insert(key));
+		}
+
+		assertEquals(16, table.capacity());
+		assertEquals(keys.size(), table.size());
+
+		for (Key key : keys) {
+			assertSame(key, table.find(new Key(key.id, key.hash)));
+		}
+
+		// Missing keys on either chain run into its end and stop there.
+		assertNull(table.find(new Key(100, 3)));
+		assertNull(table.find(new Key(101, 15)));
+		assertTrue(!table.insert(new Key(4, 3)));
+		assertEquals(keys.size(), table.size());
+	}
+
+	/**
+	 * Growing past the load limit, or being told to, doubles the table, and every key must
+	 * still be there, exactly once.
+	 */
+	@Test
+	public void resizeKeepsEveryKey() {
+		openHashTable<nameEntry> table = new openHashTable<>(4, 0.7);
+		List<nameEntry> entries = new ArrayList<>();
+
+		for (int i = 0; i < 5000; i++) {
+			nameEntry entry = new nameEntry("Feature " + i, i % 3 == 0 ? "VA" : "WV", i);
+			entries.add(entry);
+			assertTrue(table.insert(entry));
+		}
+
+		assertEquals(entries.size(), table.size());
+		assertTrue(table.getLoad() <= 0.7);
+
+		int capacity = table.capacity();
+		table.reallocate();
+
+		assertEquals(capacity * 2, table.capacity());
+		assertEquals(entries.size(), table.size());
+
+		for (nameEntry entry : entries) {
+			assertSame(entry, table.find(new nameEntry(entry.name(), entry.state(), 0)));
+		}
+
+		int[] count = new int[1];
+		table.forEach(entry -> count[0]++);
+
+		assertEquals(entries.size(), count[0]);
+	}
+
+	/**
+	 * An upsert of a key that's already there hands back the stored entry and leaves the table alone.
+	 */
+	@Test
+	public void findOrInsertReturnsTheExistingEntry() {
+		openHashTable<nameEntry> table = new openHashTable<>(16, 0.7);
+		nameEntry stored = new nameEntry("Bath Alum", "VA", 100);
+		nameEntry again = new nameEntry("Bath Alum", "VA", 200);
+		nameEntry other = new nameEntry("Bath Alum", "WV", 300);
+
+		assertSame(stored, table.findOrInsert(stored));
+		assertSame(stored, table.findOrInsert(again));
+		assertEquals(1, table.size());
+		assertEquals(1, stored.locations().size());
+
+		assertSame(other, table.findOrInsert(other));
+		assertEquals(2, table.size());
+	}
+
+	/**
+	 * Inserting a table's elements in forEach order into an empty table of the same size must put
+	 * every element back in the slot it came from, which is what index snapshots rely on.
+	 */
+	@Test
+	public void forEachOrderRebuildsTheSameSlots(@TempDir Path dir) throws IOException {
+		openHashTable<Key> table = new openHashTable<>(32, 0.9);
+
+		// Chains that run into each other, one wrapping past the end of the table, so an
+		// element's slot depends on what was inserted before it.
+		int[] homes = {30, 31, 30, 0, 1, 31, 5, 5, 6, 5, 20, 21, 20, 30};
+
+		for (int i = 0; i < homes.length; i++) {
+			table.insert(new Key(i, homes[i]));
+		}
+
+		openHashTable<Key> copy = new openHashTable<>(table.capacity(), table.getLoadLimit());
+		table.forEach(copy::insert);
+
+		assertEquals(table.capacity(), copy.capacity());
+		assertEquals(slots(table, dir.resolve("table.txt")), slots(copy, dir.resolve("copy.txt")));
+	}
+
+	/**
+	 * Returns a table's display, which lists every element with its slot.
+	 */
+	private static String slots(openHashTable<Key> table, Path file) throws IOException {
+		try (FileWriter fw = new FileWriter(file.toFile())) {
+			table.display(fw);
+		}
+
+		return Files.readString(file);
+	}
+}
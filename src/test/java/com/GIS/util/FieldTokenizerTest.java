@@ -0,0 +1,103 @@
+package com.GIS.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that FieldTokenizer finds the same fields as String.split(), trailing empty ones
+ * included, and refuses fields a record doesn't have.
+ * @author Mansour Najah
+ */
+public class FieldTokenizerTest {
+
+	// A GNIS record, with empty fields in the middle and at the end.
+	private static final String RECORD = "1479116|Dorrtown|Populated Place|VA|51|Bath|017|380649N|0794328W|"
+			+ "38.1136111|-79.7244444|||||466|1529|Warm Springs|09/28/1979|";
+
+	/**
+	 * Checks that the tokenizer holds the fields split() finds, with none dropped.
+	 */
+	private static void assertFields(String record, FieldTokenizer fields) {
+		String[] expected = record.split("\\|", -1);
+
+		assertEquals(expected.length, fields.fieldCount(), record);
+
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], fields.field(i), record + " field " + i);
+			assertEquals(expected[i].length(), fields.length(i));
+			assertTrue(fields.fieldEquals(i, expected[i]));
+		}
+	}
+
+	@Test
+	public void fieldsMatchSplit() {
+		FieldTokenizer fields = new FieldTokenizer();
+
+		assertFields(RECORD, fields.reset(RECORD));
+		assertEquals("Dorrtown", fields.field(1));
+		assertEquals("", fields.field(13));
+		assertFalse(fields.fieldEquals(3, "V"));
+		assertFalse(fields.fieldEquals(3, "VAX"));
+	}
+
+	@Test
+	public void emptyFieldsAreKept() {
+		FieldTokenizer fields = new FieldTokenizer();
+
+		for (String record : new String[] {"", "|", "||", "a||b", "|a|", "||a"}) {
+			assertFields(record, fields.reset(record));
+		}
+
+		fields.reset("");
+		assertEquals(1, fields.fieldCount());
+		assertEquals(0, fields.length(0));
+		assertTrue(fields.fieldEquals(0, ""));
+	}
+
+	@Test
+	public void trailingDelimiterEndsInAnEmptyField() {
+		FieldTokenizer fields = new FieldTokenizer().reset("Bath|VA|");
+
+		assertEquals(3, fields.fieldCount());
+		assertEquals("", fields.field(2));
+		assertEquals(8, fields.start(2));
+		assertEquals(8, fields.end(2));
+	}
+
+	@Test
+	public void missingFieldsAreRefused() {
+		FieldTokenizer fields = new FieldTokenizer().reset("1479116|Dorrtown|Populated Place");
+
+		assertEquals(3, fields.fieldCount());
+		assertThrows(IndexOutOfBoundsException.class, () -> fields.field(3));
+		assertThrows(IndexOutOfBoundsException.class, () -> fields.fieldEquals(9, "Bath"));
+		assertThrows(IndexOutOfBoundsException.class, () -> fields.length(-1));
+	}
+
+	/**
+	 * A tokenizer reset on one record of a page sees only that record, and a reused tokenizer
+	 * forgets the fields of the records before.
+	 */
+	@Test
+	public void resetOnPartOfAPage() {
+		String first = "a|b|c";
+		String page = first + "\n" + RECORD + "\n";
+		FieldTokenizer fields = new FieldTokenizer(';');
+
+		assertEquals(1, fields.reset(RECORD).fieldCount());
+
+		fields = new FieldTokenizer();
+		fields.reset(page, first.length() + 1, page.length() - 1);
+		assertFields(RECORD, fields);
+		assertEquals(first.length() + 1, fields.start(0));
+
+		// More fields than the tokenizer first has room for, then fewer.
+		String wide = "x|".repeat(100);
+		assertFields(wide, fields.reset(wide));
+		assertFields(first, fields.reset(page, 0, first.length()));
+	}
+}
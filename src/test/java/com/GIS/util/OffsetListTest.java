@@ -0,0 +1,107 @@
+package com.GIS.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that OffsetList.add keeps its offsets sorted and free of duplicates, whatever order they come in.
+ * @author Mansour Najah
+ */
+public class OffsetListTest {
+
+	@Test
+	public void inOrderOffsetsAreAppended() {
+		OffsetList list = new OffsetList();
+
+		for (long offset = 0; offset < 1000; offset += 10) {
+			assertTrue(list.add(offset));
+		}
+
+		assertEquals(100, list.size());
+
+		for (int i = 0; i < list.size(); i++) {
+			assertEquals(i * 10L, list.get(i));
+		}
+	}
+
+	@Test
+	public void reverseOrderOffsetsComeOutSorted() {
+		OffsetList list = new OffsetList();
+
+		for (long offset = 999; offset >= 0; offset--) {
+			assertTrue(list.add(offset));
+		}
+
+		assertEquals(1000, list.size());
+
+		for (int i = 0; i < list.size(); i++) {
+			assertEquals(i, list.get(i));
+		}
+	}
+
+	@Test
+	public void duplicatesAreSkipped() {
+		OffsetList list = new OffsetList();
+
+		assertTrue(list.add(265));
+		assertTrue(list.add(6142));
+		assertTrue(list.add(1000));
+
+		// The last offset, the first and one in the middle.
+		assertFalse(list.add(6142));
+		assertFalse(list.add(265));
+		assertFalse(list.add(1000));
+
+		assertEquals("[265, 1000, 6142]", list.toString());
+
+		OffsetList other = new OffsetList();
+		other.add(1000);
+		other.add(7000);
+		list.addAll(other);
+
+		assertArrayEquals(new long[] {265, 1000, 6142, 7000}, list.toArray());
+	}
+
+	@Test
+	public void midListInsertsShiftTheRest() {
+		OffsetList list = new OffsetList();
+
+		list.add(100);
+		list.add(300);
+		list.add(500);
+
+		assertTrue(list.add(200));
+		assertTrue(list.add(400));
+		assertTrue(list.add(0));
+
+		assertArrayEquals(new long[] {0, 100, 200, 300, 400, 500}, list.toArray());
+		assertTrue(list.contains(400));
+		assertFalse(list.contains(450));
+		assertThrows(IndexOutOfBoundsException.class, () -> list.get(6));
+	}
+
+	/**
+	 * Offsets in any order, repeats included, must come out as a sorted set would hold them.
+	 */
+	@Test
+	public void randomOffsetsMatchASortedSet() {
+		OffsetList list = new OffsetList();
+		TreeSet<Long> expected = new TreeSet<>();
+		Random random = new Random(3);
+
+		for (int i = 0; i < 5000; i++) {
+			long offset = random.nextInt(2000);
+			assertEquals(expected.add(offset), list.add(offset));
+		}
+
+		assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), list.toArray());
+	}
+}
@@ -0,0 +1,102 @@
+package com.GIS.world;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of CoordinateParser's hemisphere signs, unknown coordinates, and packing coordinates
+ * so they render just like the text they came from.
+ * @author Mansour Najah
+ */
+public class CoordinateParserTest {
+
+	private static int toSeconds(String dms) {
+		return CoordinateParser.toSeconds(dms);
+	}
+
+	private static int pack(String dms) {
+		return CoordinateParser.pack(dms, 0, dms.length());
+	}
+
+	private static String render(String dms) {
+		return CoordinateParser.render(dms, 0, dms.length());
+	}
+
+	@Test
+	public void southAndWestAreNegative() {
+		assertEquals(38 * 3600 + 28 * 60 + 12, toSeconds("382812N"));
+		assertEquals(-(38 * 3600 + 28 * 60 + 12), toSeconds("382812S"));
+		assertEquals(79 * 3600 + 31 * 60 + 56, toSeconds("0793156E"));
+		assertEquals(-(79 * 3600 + 31 * 60 + 56), toSeconds("0793156W"));
+		assertEquals(0, toSeconds("000000N"));
+		assertEquals(0, toSeconds("0000000W"));
+
+		assertEquals("38d 28m 12s North", render("382812N"));
+		assertEquals("38d 28m 12s South", render("382812S"));
+		assertEquals("79d 31m 56s East", render("0793156E"));
+		assertEquals("79d 31m 56s West", render("0793156W"));
+	}
+
+	/**
+	 * An empty or "Unknown" coordinate gets the sentinels, which lie outside any world, and renders
+	 * as not given, packed or not.
+	 */
+	@Test
+	public void unknownCoordinatesGetTheSentinel() {
+		for (String dms : new String[] {"", "Unknown"}) {
+			assertEquals(CoordinateParser.UNKNOWN, toSeconds(dms));
+			assertEquals(CoordinateParser.UNKNOWN_PACKED, pack(dms));
+			assertEquals("Coordinate is not given", render(dms));
+			assertEquals("Coordinate is not given", CoordinateParser.render(pack(dms)));
+		}
+
+		assertEquals(CoordinateParser.UNKNOWN, CoordinateParser.toSeconds(null));
+		assertTrue(CoordinateParser.UNKNOWN > 180 * 3600);
+
+		// Unknown only as a whole field, read out of a longer record.
+		String record = "Bath|Unknown|0793156W";
+		assertEquals(CoordinateParser.UNKNOWN, CoordinateParser.toSeconds(record, 5, 12));
+		assertEquals(-(79 * 3600 + 31 * 60 + 56), CoordinateParser.toSeconds(record, 13, record.length()));
+	}
+
+	@Test
+	public void malformedCoordinatesAreRefused() {
+		for (String dms : new String[] {"382812X", "38a812N", "12N", "Unknow", "unknown"}) {
+			assertThrows(NumberFormatException.class, () -> toSeconds(dms), dms);
+			assertThrows(NumberFormatException.class, () -> pack(dms), dms);
+		}
+	}
+
+	/**
+	 * A packed coordinate must render exactly as the text it was packed from, leading zeros,
+	 * hemisphere and all.
+	 */
+	@Test
+	public void packedCoordinatesRenderLikeTheirText() {
+		String[] samples = {"382812N", "382812S", "0793156W", "0793156E", "000000N", "0000000E", "1800000W",
+				"895959S", "0050509N", "1795959E"};
+
+		for (String dms : samples) {
+			assertEquals(render(dms), CoordinateParser.render(pack(dms)), dms);
+		}
+
+		Random random = new Random(9);
+
+		for (int i = 0; i < 10_000; i++) {
+			boolean latitude = random.nextBoolean();
+			int degrees = random.nextInt(latitude ? 91 : 181);
+			String dms = String.format(latitude ? "%02d%02d%02d%c" : "%03d%02d%02d%c", degrees, random.nextInt(60),
+					random.nextInt(60), (latitude ? "NS" : "EW").charAt(random.nextInt(2)));
+
+			int packed = pack(dms);
+
+			assertTrue(packed >= 0, dms);
+			assertEquals(render(dms), CoordinateParser.render(packed), dms);
+		}
+	}
+}
@@ -0,0 +1,302 @@
+package com.GIS.world;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of prQuadTree's point lookup, nearest neighbor and radius search, and bulk loading.
+ * @author Mansour Najah
+ */
+public class prQuadTreeTest {
+
+	private static final int POINTS = 10_000;
+	private static final long SIZE = 1 << 20;
+
+	// The whole globe in seconds, longitude on x and latitude on y.
+	private static final long LONGITUDE = 180 * 3600;
+	private static final long LATITUDE = 90 * 3600;
+
+	/**
+	 * Builds a tree of random points, handing them back through points.
+	 */
+	private static prQuadTree<Point> tree(List<Point> points) {
+		prQuadTree<Point> tree = new prQuadTree<>(0, SIZE, 0, SIZE, 4, prQuadTree.DEFAULT_MAX_DEPTH);
+		Random random = new Random(42);
+
+		while (points.size() < POINTS) {
+			Point point = new Point(random.nextInt((int) SIZE), random.nextInt((int) SIZE));
+
+			if (tree.insert(point)) {
+				points.add(point);
+			}
+		}
+
+		return tree;
+	}
+
+	@Test
+	public void findReturnsTheStoredPoint() {
+		List<Point> points = new ArrayList<>();
+		prQuadTree<Point> tree = tree(points);
+
+		for (Point point : points) {
+			assertSame(point, tree.find(new Point(point.getX(), point.getY())));
+		}
+
+		assertNull(tree.find(new Point(SIZE + 1, SIZE + 1)));
+	}
+
+	/**
+	 * Builds a world spanning the globe. Its points cluster on both sides of the antimeridian and
+	 * around both poles, and some sit on a ring around (0, 0), all the same distance from it.
+	 */
+	private static prQuadTree<Point> globe(List<Point> points) {
+		prQuadTree<Point> tree = new prQuadTree<>(-LONGITUDE, LONGITUDE + 1, -LATITUDE, LATITUDE + 1, 4, prQuadTree.DEFAULT_MAX_DEPTH);
+		Random random = new Random(11);
+		List<Point> candidates = new ArrayList<>();
+
+		for (int i = 0; i < 500; i++) {
+			long nearMeridian = random.nextInt(7200);
+
+			candidates.add(new Point(LONGITUDE - nearMeridian, random.nextInt(7200) - 3600));
+			candidates.add(new Point(-LONGITUDE + nearMeridian, random.nextInt(7200) - 3600));
+			candidates.add(new Point(random.nextInt((int) (2 * LONGITUDE)) - LONGITUDE, LATITUDE - random.nextInt(7200)));
+			candidates.add(new Point(random.nextInt((int) (2 * LONGITUDE)) - LONGITUDE, -LATITUDE + random.nextInt(7200)));
+			candidates.add(new Point(random.nextInt((int) (2 * LONGITUDE)) - LONGITUDE, random.nextInt((int) (2 * LATITUDE)) - LATITUDE));
+		}
+
+		for (long d : new long[] {600, 1800}) {
+			candidates.add(new Point(d, 0));
+			candidates.add(new Point(-d, 0));
+			candidates.add(new Point(0, d));
+			candidates.add(new Point(0, -d));
+		}
+
+		candidates.add(new Point(LONGITUDE, LATITUDE));
+		candidates.add(new Point(-LONGITUDE, -LATITUDE));
+
+		for (Point point : candidates) {
+			if (tree.insert(point)) {
+				points.add(point);
+			}
+		}
+
+		return tree;
+	}
+
+	/**
+	 * Returns every point's distance from (x, y), nearest first, by brute force.
+	 */
+	private static List<Double> distances(List<Point> points, long x, long y) {
+		List<Double> distances = new ArrayList<>();
+
+		for (Point point : points) {
+			distances.add(GreatCircle.distance(x, y, point.getX(), point.getY()));
+		}
+
+		distances.sort(Comparator.naturalOrder());
+
+		return distances;
+	}
+
+	/**
+	 * Checks that a search came back nearest first, without repeats, and returns each result's distance.
+	 */
+	private static List<Double> checkOrder(List<Point> found, long x, long y) {
+		List<Double> distances = new ArrayList<>();
+
+		for (Point point : found) {
+			distances.add(GreatCircle.distance(x, y, point.getX(), point.getY()));
+		}
+
+		for (int i = 1; i < distances.size(); i++) {
+			assertTrue(distances.get(i - 1) <= distances.get(i), "results out of order at " + i);
+		}
+
+		assertEquals(found.size(), new HashSet<>(found).size(), "repeated results");
+
+		return distances;
+	}
+
+	/**
+	 * The k nearest points must be as near as the k nearest a scan of every point finds, ties
+	 * included, for queries across the antimeridian, at the poles and on the ring of equal distances.
+	 */
+	@Test
+	public void findNearestMatchesBruteForce() {
+		List<Point> points = new ArrayList<>();
+		prQuadTree<Point> tree = globe(points);
+		long[][] queries = {{0, 0}, {LONGITUDE, 0}, {-LONGITUDE, 0}, {LONGITUDE - 10, 1800}, {-LONGITUDE + 10, -1800},
+				{0, LATITUDE}, {0, -LATITUDE}, {LONGITUDE / 2, LATITUDE - 60}, {-LONGITUDE / 3, -LATITUDE + 60}};
+
+		for (long[] query : queries) {
+			List<Double> expected = distances(points, query[0], query[1]);
+
+			for (int k : new int[] {1, 4, 5, 8, 50, points.size(), points.size() + 10}) {
+				List<Double> found = checkOrder(tree.findNearest(query[0], query[1], k), query[0], query[1]);
+
+				assertEquals(expected.subList(0, Math.min(k, expected.size())), found,
+						k + " nearest to (" + query[0] + ", " + query[1] + ")");
+			}
+		}
+
+		assertTrue(tree.findNearest(0, 0, 0).isEmpty());
+	}
+
+	/**
+	 * Every point within a radius must be found, and nothing further, matching a scan of every point.
+	 */
+	@Test
+	public void findWithinMatchesBruteForce() {
+		List<Point> points = new ArrayList<>();
+		prQuadTree<Point> tree = globe(points);
+		long[][] queries = {{0, 0}, {LONGITUDE, 0}, {-LONGITUDE + 10, -1800}, {0, LATITUDE}, {0, -LATITUDE}};
+
+		for (long[] query : queries) {
+			// The ring around (0, 0) lies exactly on the first two radii.
+			double ring = GreatCircle.distance(0, 0, 600, 0);
+			double[] radii = {ring, GreatCircle.distance(0, 0, 1800, 0), 0, 50_000, 500_000, 5_000_000};
+
+			for (double radius : radii) {
+				List<Point> expected = new ArrayList<>();
+
+				for (Point point : points) {
+					if (GreatCircle.distance(query[0], query[1], point.getX(), point.getY()) <= radius) {
+						expected.add(point);
+					}
+				}
+
+				List<Point> found = tree.findWithin(query[0], query[1], radius);
+				checkOrder(found, query[0], query[1]);
+
+				assertEquals(new HashSet<>(expected), new HashSet<>(found),
+						"within " + radius + "m of (" + query[0] + ", " + query[1] + ")");
+			}
+		}
+	}
+
+	/**
+	 * Bulk loading from sorted runs, as a multi-threaded import does, must build the same tree,
+	 * down to the order of every bucket, as bulk loading the elements in one go.
+	 */
+	@Test
+	public void bulkLoadOfSortedRunsMatchesBulkLoad() {
+		prQuadTree<Point> whole = new prQuadTree<>(0, 1000, 0, 1000, 4, 12);
+		prQuadTree<Point> merged = new prQuadTree<>(0, 1000, 0, 1000, 4, 12);
+		List<Point> elems = new ArrayList<>();
+		List<Point> copies = new ArrayList<>();
+		Random random = new Random(7);
+
+		// A coarse grid, so many points share a location, and a few points outside the world.
+		for (int i = 0; i < 20_000; i++) {
+			long x = random.nextInt(110) * 10 - 50;
+			long y = random.nextInt(100) * 10;
+
+			elems.add(new Point(x, y));
+			elems.get(i).addOffset(i);
+			copies.add(new Point(x, y));
+			copies.get(i).addOffset(i);
+		}
+
+		List<Point> runs = new ArrayList<>();
+
+		for (int from = 0; from < copies.size(); from += 1024) {
+			runs.addAll(merged.sortedRun(copies.subList(from, Math.min(copies.size(), from + 1024))));
+		}
+
+		assertEquals(whole.bulkLoad(elems, (loc, duplicate) -> loc.getOffsets().addAll(duplicate.getOffsets())),
+				merged.bulkLoad(copies, runs, (loc, duplicate) -> loc.getOffsets().addAll(duplicate.getOffsets())));
+		assertEquals(leaves(whole.root), leaves(merged.root));
+	}
+
+	/**
+	 * Lists every leaf of a subtree in a fixed order, with each element's location and offsets.
+	 */
+	@SuppressWarnings("unchecked")
+	private static String leaves(prQuadTree<Point>.prQuadNode node) {
+		if (node == null) {
+			return "-";
+		}
+
+		if (node instanceof prQuadTree.prQuadInternal) {
+			prQuadTree<Point>.prQuadInternal internal = (prQuadTree<Point>.prQuadInternal) node;
+			return "(" + leaves(internal.NE) + leaves(internal.NW) + leaves(internal.SE) + leaves(internal.SW) + ")";
+		}
+
+		StringBuilder leaf = new StringBuilder("[");
+
+		for (Point point : ((prQuadTree<Point>.prQuadLeaf) node).Elements) {
+			leaf.append(point).append(point.getOffsets()).append(' ');
+		}
+
+		return leaf.append(']').toString();
+	}
+
+	/**
+	 * A point lookup walks the tree on integer midpoints and loops over buckets by index, so
+	 * once it's compiled it mustn't allocate anything.
+	 */
+	@Test
+	public void findAllocatesNothing() {
+		List<Point> points = new ArrayList<>();
+		prQuadTree<Point> tree = tree(points);
+
+		// The probes are made up front, only the lookups are measured.
+		Point[] probes = new Point[POINTS];
+
+		for (int i = 0; i < POINTS; i++) {
+			probes[i] = new Point(points.get(i).getX(), points.get(i).getY());
+		}
+
+		// Warm up until find is compiled.
+		long found = 0;
+
+		for (int round = 0; round < 50; round++) {
+			found += lookUp(tree, probes);
+		}
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+
+		// Reading the counter may allocate a little itself, so that's measured first and allowed for.
+		long before = threads.getThreadAllocatedBytes(thread);
+		long overhead = threads.getThreadAllocatedBytes(thread) - before;
+
+		before = threads.getThreadAllocatedBytes(thread);
+
+		for (int round = 0; round < 20; round++) {
+			found += lookUp(tree, probes);
+		}
+
+		long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+		assertEquals(70L * POINTS, found);
+		assertEquals(0, Math.max(0, allocated - overhead), "bytes allocated by " + 20 * POINTS + " lookups");
+	}
+
+	/**
+	 * Looks up every probe, returning how many were found.
+	 */
+	private static int lookUp(prQuadTree<Point> tree, Point[] probes) {
+		int found = 0;
+
+		for (Point probe : probes) {
+			if (tree.find(probe) != null) {
+				found++;
+			}
+		}
+
+		return found;
+	}
+}